@@ -8,6 +8,10 @@ import org.springframework.web.bind.MissingRequestHeaderException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.server.ServerWebInputException;
 
 import javax.validation.ConstraintViolationException;
 import java.util.List;
@@ -40,6 +44,27 @@ public class ErrorHandler {
         return Map.of(HttpStatus.BAD_REQUEST.getReasonPhrase(), errors);
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, List<String>> handleWebExchangeBindException(final WebExchangeBindException e) {
+        List<String> errors = e.getFieldErrors()
+                .stream().map(DefaultMessageSourceResolvable::getDefaultMessage)
+                .collect(Collectors.toList());
+        if (errors.isEmpty()) {
+            errors.add((Objects.requireNonNull(e.getGlobalError())).getDefaultMessage());
+        }
+        log.warn(errors.toString());
+        return Map.of(HttpStatus.BAD_REQUEST.getReasonPhrase(), errors);
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, List<String>> handleServerWebInputException(final ServerWebInputException e) {
+        List<String> errors = List.of(Objects.requireNonNullElse(e.getReason(), e.getLocalizedMessage()));
+        log.warn(errors.toString());
+        return Map.of(HttpStatus.BAD_REQUEST.getReasonPhrase(), errors);
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, List<String>> handleConstraintViolationException(final ConstraintViolationException e) {
@@ -47,6 +72,14 @@ public class ErrorHandler {
         return Map.of(HttpStatus.BAD_REQUEST.getReasonPhrase(), errors);
     }
 
+    @ExceptionHandler({ResourceAccessException.class, WebClientRequestException.class})
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> handleServerAccessException(final RuntimeException e) {
+        log.warn("ShareIt server is not reachable: {}", e.getLocalizedMessage());
+        return Map.of("error", "ShareIt server is not reachable, try again later",
+                HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(), HttpStatus.SERVICE_UNAVAILABLE.toString());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleIllegalArgumentException(final IllegalArgumentException e) {
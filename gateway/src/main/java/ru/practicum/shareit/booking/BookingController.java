@@ -2,16 +2,22 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -22,61 +28,97 @@ public class BookingController {
     private final BookingClient bookingClient;
 
     @PostMapping
-    public ResponseEntity<Object> bookItem(@RequestHeader("X-Sharer-User-Id") long userId,
-                                           @RequestBody @Valid BookItemRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> bookItem(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                 @RequestBody @Valid BookItemRequestDto requestDto) {
         log.info("Creating booking {}, userId={}", requestDto, userId);
         return bookingClient.bookItem(userId, requestDto);
     }
 
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Object>> bookItems(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                  @RequestBody @NotEmpty @Size(max = 100)
+                                                  List<@Valid BookItemRequestDto> requestDtos) {
+        log.info("Creating {} bookings, userId={}", requestDtos.size(), userId);
+        return bookingClient.bookItems(userId, requestDtos);
+    }
+
+    @PatchMapping("/batch")
+    public Mono<ResponseEntity<Object>> decideAll(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                  @RequestBody @NotEmpty @Size(max = 100)
+                                                  List<@Valid BookingDecisionDto> decisions) {
+        log.info("Received request from user with Id {} to decide {} bookings", userId, decisions.size());
+        return bookingClient.decideAll(userId, decisions);
+    }
+
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> approve(@RequestHeader("X-Sharer-User-Id") long userId,
-                                          @PathVariable Long bookingId,
-                                          @RequestParam boolean approved) {
+    public Mono<ResponseEntity<Object>> approve(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                @PathVariable Long bookingId,
+                                                @RequestParam boolean approved,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                String ifMatch) {
         log.info("Received request from user with Id {} to " +
                 (approved ? "approve" : "reject") +
                 " booking with id: {}", userId, bookingId);
-        return bookingClient.approveBooking(bookingId, userId, approved);
+        return bookingClient.approveBooking(bookingId, userId, approved, ifMatch);
+    }
+
+    @GetMapping("/summary")
+    public Mono<ResponseEntity<Object>> getCounts(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Get booking counts by state, userId={}", userId);
+        return bookingClient.getCounts(userId);
+    }
+
+    @GetMapping("/owner/summary")
+    public Mono<ResponseEntity<Object>> getCountsForOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Get booking counts by state for owner's items, userId={}", userId);
+        return bookingClient.getCountsForOwner(userId);
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBooking(@RequestHeader("X-Sharer-User-Id") long userId,
-                                             @PathVariable Long bookingId) {
+    public Mono<ResponseEntity<Object>> getBooking(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                   @PathVariable Long bookingId) {
         log.info("Get booking {}, userId={}", bookingId, userId);
         return bookingClient.getBooking(userId, bookingId);
     }
 
 
     @GetMapping
-    public ResponseEntity<Object> getBookings(@RequestHeader("X-Sharer-User-Id")
-                                              long userId,
-                                              @RequestParam(name = "state", defaultValue = "all")
-                                              String stateParam,
-                                              @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
-                                              Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10")
-                                              Integer size) {
+    public Mono<ResponseEntity<Object>> getBookings(@RequestHeader("X-Sharer-User-Id")
+                                                    long userId,
+                                                    @RequestParam(name = "state", defaultValue = "all")
+                                                    String stateParam,
+                                                    @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
+                                                    Integer from,
+                                                    @Positive @RequestParam(name = "size", defaultValue = "10")
+                                                    Integer size,
+                                                    @RequestParam(name = "after", required = false)
+                                                    String after) {
         BookingState state = BookingState
                 .from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
-        log.info("Get booking with state {}, userId={}, from={}, size={}",
-                stateParam, userId, from, size);
-        return bookingClient.getBookings(userId, state, from, size);
+        log.info("Get booking with state {}, userId={}, from={}, size={}, after={}",
+                stateParam, userId, from, size, after);
+        return bookingClient.getBookings(userId, state, from, size, after);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> getBookingsForOwner(@RequestHeader("X-Sharer-User-Id")
-                                                      long userId,
-                                                      @RequestParam(name = "state", defaultValue = "all")
-                                                      String stateParam,
-                                                      @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
-                                                      Integer from,
-                                                      @Positive @RequestParam(name = "size", defaultValue = "10")
-                                                      Integer size) {
+    public Mono<ResponseEntity<Object>> getBookingsForOwner(@RequestHeader("X-Sharer-User-Id")
+                                                            long userId,
+                                                            @RequestParam(name = "state", defaultValue = "all")
+                                                            String stateParam,
+                                                            @PositiveOrZero
+                                                            @RequestParam(name = "from", defaultValue = "0")
+                                                            Integer from,
+                                                            @Positive
+                                                            @RequestParam(name = "size", defaultValue = "10")
+                                                            Integer size,
+                                                            @RequestParam(name = "after", required = false)
+                                                            String after) {
         BookingState state = BookingState
                 .from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
-        log.info("Get booking for owner's items with state {}, userId={}, from={}, size={}",
-                stateParam, userId, from, size);
-        return bookingClient.getBookingsForOwner(userId, state, from, size);
+        log.info("Get booking for owner's items with state {}, userId={}, from={}, size={}, after={}",
+                stateParam, userId, from, size, after);
+        return bookingClient.getBookingsForOwner(userId, state, from, size, after);
     }
 }
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sends GET requests conditionally with the ETag of the cached response, so an unchanged resource
+ * costs the server a 304 instead of a full body. Other methods pass through unchanged.
+ * Responses are cached per path, query and X-Sharer-User-Id, since the server shapes views by user.
+ */
+public class CachingTransport implements GatewayTransport {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private final GatewayTransport delegate;
+    private final GatewayResponseCache cache;
+    private final String apiPrefix;
+
+    public CachingTransport(GatewayTransport delegate, GatewayResponseCache cache, String apiPrefix) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.apiPrefix = apiPrefix;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> exchange(HttpMethod method,
+                                                 String path,
+                                                 @Nullable Map<String, Object> parameters,
+                                                 HttpEntity<?> request) {
+        if (method != HttpMethod.GET) {
+            return delegate.exchange(method, path, parameters, request);
+        }
+        String key = key(path, parameters, request.getHeaders());
+        ResponseEntity<Object> cached = cache.get(key);
+        HttpEntity<?> conditionalRequest = request;
+        String eTag = cached != null ? cached.getHeaders().getETag() : null;
+        if (eTag != null) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.addAll(request.getHeaders());
+            headers.setIfNoneMatch(eTag);
+            conditionalRequest = new HttpEntity<>(request.getBody(), headers);
+        }
+        return delegate.exchange(method, path, parameters, conditionalRequest)
+                .map(response -> cache.update(key, cached, response));
+    }
+
+    private String key(String path, @Nullable Map<String, Object> parameters, HttpHeaders headers) {
+        StringBuilder key = new StringBuilder(apiPrefix).append(path);
+        if (parameters != null) {
+            key.append(' ').append(new TreeMap<>(parameters));
+        }
+        return key.append(" user=").append(headers.getFirst(USER_HEADER)).toString();
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.netty.channel.ChannelOption;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One connection pool to the ShareIt server shared by all gateway clients, for either transport.
+ * Connections are kept alive between requests, idle ones are closed in the background,
+ * and every phase of a request (lease, connect, read) is bounded by a timeout.
+ */
+@Configuration
+public class GatewayHttpClientConfig {
+    private static final String POOL_NAME = "shareit-server";
+
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final Duration connectTimeout;
+    private final Duration leaseTimeout;
+    private final Duration readTimeout;
+    private final Duration keepAlive;
+    private final Duration idleEviction;
+    private final Duration validateAfterInactivity;
+
+    public GatewayHttpClientConfig(
+            @Value("${shareit-gateway.http-client.max-connections:200}") int maxConnections,
+            @Value("${shareit-gateway.http-client.max-connections-per-route:200}") int maxConnectionsPerRoute,
+            @Value("${shareit-gateway.http-client.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${shareit-gateway.http-client.lease-timeout:2s}") Duration leaseTimeout,
+            @Value("${shareit-gateway.http-client.read-timeout:30s}") Duration readTimeout,
+            @Value("${shareit-gateway.http-client.keep-alive:15s}") Duration keepAlive,
+            @Value("${shareit-gateway.http-client.idle-eviction:30s}") Duration idleEviction,
+            @Value("${shareit-gateway.http-client.validate-after-inactivity:2s}") Duration validateAfterInactivity) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.connectTimeout = connectTimeout;
+        this.leaseTimeout = leaseTimeout;
+        this.readTimeout = readTimeout;
+        this.keepAlive = keepAlive;
+        this.idleEviction = idleEviction;
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+
+    @Bean
+    public HttpComponentsClientHttpRequestFactory shareItServerRequestFactory(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager();
+        pool.setMaxTotal(maxConnections);
+        pool.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        pool.setValidateAfterInactivity((int) validateAfterInactivity.toMillis());
+        new PoolingHttpClientConnectionManagerMetricsBinder(pool, POOL_NAME).bindTo(meterRegistry);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setConnectionRequestTimeout((int) leaseTimeout.toMillis())
+                .setSocketTimeout((int) readTimeout.toMillis())
+                .build();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(new InstrumentedConnectionManager(pool, meterRegistry))
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEviction.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider shareItServerConnectionProvider() {
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(leaseTimeout)
+                .maxIdleTime(keepAlive)
+                .evictInBackground(idleEviction)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public ReactorClientHttpConnector shareItServerConnector(ConnectionProvider shareItServerConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(shareItServerConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
+    /**
+     * Keeps a connection no longer than the server allows in its Keep-Alive header
+     * and never longer than the configured period, so it is closed before the server drops it.
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        long keepAliveMillis = keepAlive.toMillis();
+        return (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Server responses to GET requests that carry an ETag, kept by the gateway for revalidation.
+ * A cached response is never served without asking the server: it is only reused when the server
+ * answers the conditional request with 304 Not Modified.
+ * The cache is bounded by the total size of the stored bodies.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit-gateway.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class GatewayResponseCache {
+    private static final int ENTRY_OVERHEAD = 512;
+    private static final String REVALIDATION_METRIC = "shareit.gateway.response.cache.revalidations";
+
+    private final Cache<String, ResponseEntity<Object>> responses;
+    private final Counter notModified;
+    private final Counter modified;
+    private final Counter missed;
+
+    public GatewayResponseCache(@Value("${shareit-gateway.response-cache.max-size:64MB}") DataSize maxSize,
+                                @Value("${shareit-gateway.response-cache.ttl:10m}") Duration ttl,
+                                MeterRegistry meterRegistry) {
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher(GatewayResponseCache::weigh)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "gatewayResponses");
+        this.notModified = meterRegistry.counter(REVALIDATION_METRIC, "result", "not-modified");
+        this.modified = meterRegistry.counter(REVALIDATION_METRIC, "result", "modified");
+        this.missed = meterRegistry.counter(REVALIDATION_METRIC, "result", "miss");
+        Gauge.builder("shareit.gateway.response.cache.hit.ratio", this, GatewayResponseCache::hitRatio)
+                .description("Share of GET requests answered from the cache after a 304 from the server")
+                .register(meterRegistry);
+    }
+
+    @Nullable
+    ResponseEntity<Object> get(String key) {
+        return responses.getIfPresent(key);
+    }
+
+    /**
+     * Returns the response to give to the client: the cached one when the server confirmed it is
+     * still current, otherwise the fresh one, which replaces the cached response if it has an ETag.
+     */
+    ResponseEntity<Object> update(String key,
+                                  @Nullable ResponseEntity<Object> cached,
+                                  ResponseEntity<Object> response) {
+        if (cached != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            notModified.increment();
+            return cached;
+        }
+        if (cached != null) {
+            modified.increment();
+        } else {
+            missed.increment();
+        }
+        if (response.getStatusCode() == HttpStatus.OK && response.getHeaders().getETag() != null) {
+            responses.put(key, response);
+        } else if (cached != null) {
+            responses.invalidate(key);
+        }
+        return response;
+    }
+
+    private static int weigh(String key, ResponseEntity<Object> response) {
+        Object body = response.getBody();
+        int bodySize = body instanceof byte[] ? ((byte[]) body).length : 0;
+        return key.length() + bodySize + ENTRY_OVERHEAD;
+    }
+
+    private double hitRatio() {
+        double hits = notModified.count();
+        double total = hits + modified.count() + missed.count();
+        return total == 0 ? 0 : hits / total;
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+
+import java.util.Set;
+
+final class GatewayResponses {
+    /**
+     * Headers that describe the connection between the gateway and the server rather than the response itself.
+     * The body length is recomputed when the bytes are written to the client.
+     */
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(),
+            "keep-alive",
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.TE.toLowerCase(),
+            HttpHeaders.TRAILER.toLowerCase(),
+            HttpHeaders.UPGRADE.toLowerCase(),
+            HttpHeaders.PROXY_AUTHENTICATE.toLowerCase(),
+            HttpHeaders.PROXY_AUTHORIZATION.toLowerCase(),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase()
+    );
+
+    private GatewayResponses() {
+    }
+
+    /**
+     * Relays the server response as raw bytes with its status and end-to-end headers,
+     * so the gateway never binds or re-serializes the JSON it forwards.
+     */
+    static ResponseEntity<Object> relay(HttpStatus status,
+                                        @Nullable HttpHeaders serverHeaders,
+                                        @Nullable byte[] body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (serverHeaders != null) {
+            serverHeaders.forEach((name, values) -> {
+                if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                    headers.put(name, values);
+                }
+            });
+        }
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(status).headers(headers);
+        if (body != null && body.length > 0) {
+            return responseBuilder.body(body);
+        }
+        return responseBuilder.build();
+    }
+}
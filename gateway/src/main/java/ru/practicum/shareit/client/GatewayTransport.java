@@ -0,0 +1,20 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Sends a request to one resource of the ShareIt server and relays its response.
+ * Error statuses of the server are not signalled as errors: they come back as a regular response.
+ */
+public interface GatewayTransport {
+    Mono<ResponseEntity<Object>> exchange(HttpMethod method,
+                                          String path,
+                                          @Nullable Map<String, Object> parameters,
+                                          HttpEntity<?> request);
+}
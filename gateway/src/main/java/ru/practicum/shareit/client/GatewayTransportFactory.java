@@ -0,0 +1,72 @@
+package ru.practicum.shareit.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+/**
+ * Creates the transport of every client to the ShareIt server.
+ * {@code shareit-gateway.transport} selects it: {@code rest-template} (blocking Apache HttpClient)
+ * or {@code web-client} (non-blocking Reactor Netty). Both share the pools of {@link GatewayHttpClientConfig}.
+ */
+@Slf4j
+@Component
+public class GatewayTransportFactory {
+    private static final String REST_TEMPLATE = "rest-template";
+    private static final String WEB_CLIENT = "web-client";
+
+    private final String serverUrl;
+    private final String transport;
+    private final RestTemplateBuilder restTemplateBuilder;
+    private final HttpComponentsClientHttpRequestFactory requestFactory;
+    private final WebClient.Builder webClientBuilder;
+    private final GatewayResponseCache responseCache;
+
+    public GatewayTransportFactory(@Value("${shareit-server.url}") String serverUrl,
+                                   @Value("${shareit-gateway.transport:" + REST_TEMPLATE + "}") String transport,
+                                   RestTemplateBuilder restTemplateBuilder,
+                                   HttpComponentsClientHttpRequestFactory requestFactory,
+                                   WebClient.Builder webClientBuilder,
+                                   ObjectProvider<GatewayResponseCache> responseCache) {
+        if (!REST_TEMPLATE.equals(transport) && !WEB_CLIENT.equals(transport)) {
+            throw new IllegalStateException("Unknown gateway transport: " + transport);
+        }
+        this.serverUrl = serverUrl;
+        this.transport = transport;
+        this.restTemplateBuilder = restTemplateBuilder;
+        this.requestFactory = requestFactory;
+        this.webClientBuilder = webClientBuilder;
+        this.responseCache = responseCache.getIfAvailable();
+        log.info("Gateway transport: {}", transport);
+    }
+
+    /**
+     * Transport whose GET responses are cached and revalidated with the server by ETag,
+     * unless the response cache is disabled.
+     */
+    public GatewayTransport createCached(String apiPrefix) {
+        GatewayTransport serverTransport = create(apiPrefix);
+        if (responseCache == null) {
+            return serverTransport;
+        }
+        return new CachingTransport(serverTransport, responseCache, apiPrefix);
+    }
+
+    public GatewayTransport create(String apiPrefix) {
+        DefaultUriBuilderFactory uriBuilderFactory = new DefaultUriBuilderFactory(serverUrl + apiPrefix);
+        if (WEB_CLIENT.equals(transport)) {
+            return new WebClientTransport(webClientBuilder.clone()
+                    .uriBuilderFactory(uriBuilderFactory)
+                    .build());
+        }
+        return new RestTemplateTransport(restTemplateBuilder
+                .uriTemplateHandler(uriBuilderFactory)
+                .requestFactory(() -> requestFactory)
+                .build());
+    }
+}
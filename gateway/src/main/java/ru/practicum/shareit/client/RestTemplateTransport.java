@@ -0,0 +1,50 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Blocking transport: the exchange runs on the thread that subscribes, which under Spring MVC is
+ * the request thread, so concurrency is bounded by the request threads and the connection pool only.
+ * Not meant for WebFlux event loops; use {@link WebClientTransport} there.
+ */
+public class RestTemplateTransport implements GatewayTransport {
+    private final RestTemplate rest;
+
+    public RestTemplateTransport(RestTemplate rest) {
+        this.rest = rest;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> exchange(HttpMethod method,
+                                                 String path,
+                                                 @Nullable Map<String, Object> parameters,
+                                                 HttpEntity<?> request) {
+        return Mono.fromCallable(() -> send(method, path, parameters, request));
+    }
+
+    private ResponseEntity<Object> send(HttpMethod method,
+                                        String path,
+                                        @Nullable Map<String, Object> parameters,
+                                        HttpEntity<?> request) {
+        ResponseEntity<byte[]> shareitServerResponse;
+        try {
+            if (parameters != null) {
+                shareitServerResponse = rest.exchange(path, method, request, byte[].class, parameters);
+            } else {
+                shareitServerResponse = rest.exchange(path, method, request, byte[].class);
+            }
+        } catch (HttpStatusCodeException e) {
+            return GatewayResponses.relay(e.getStatusCode(), e.getResponseHeaders(), e.getResponseBodyAsByteArray());
+        }
+        return GatewayResponses.relay(shareitServerResponse.getStatusCode(), shareitServerResponse.getHeaders(),
+                shareitServerResponse.getBody());
+    }
+}
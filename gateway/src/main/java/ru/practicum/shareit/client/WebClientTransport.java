@@ -0,0 +1,39 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Non-blocking transport on Reactor Netty: no thread waits for the server while a request is in flight.
+ */
+public class WebClientTransport implements GatewayTransport {
+    private final WebClient webClient;
+
+    public WebClientTransport(WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Object>> exchange(HttpMethod method,
+                                                 String path,
+                                                 @Nullable Map<String, Object> parameters,
+                                                 HttpEntity<?> request) {
+        WebClient.RequestBodySpec spec = webClient
+                .method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(headers -> headers.addAll(request.getHeaders()));
+        WebClient.RequestHeadersSpec<?> requestSpec = request.getBody() != null
+                ? spec.bodyValue(request.getBody())
+                : spec;
+        return requestSpec
+                .exchangeToMono(response -> response.toEntity(byte[].class))
+                .map(response -> GatewayResponses.relay(response.getStatusCode(), response.getHeaders(),
+                        response.getBody()));
+    }
+}
@@ -1,41 +1,37 @@
 package ru.practicum.shareit.item;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GatewayTransportFactory;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public ItemClient(GatewayTransportFactory transports) {
+        super(transports.createCached(API_PREFIX));
     }
 
-    public ResponseEntity<Object> create(long userId, ItemDto item) {
+    public Mono<ResponseEntity<Object>> create(long userId, ItemDto item) {
         return post("", userId, item);
     }
 
-    public ResponseEntity<Object> update(long userId, Long itemId, ItemDto itemDto) {
-        return patch("/" + itemId, userId, itemDto);
+    public Mono<ResponseEntity<Object>> update(long userId, Long itemId, ItemDto itemDto, @Nullable String ifMatch) {
+        return patch("/" + itemId, userId, null, itemDto, ifMatch);
     }
 
-    public ResponseEntity<Object> getById(long userId, long itemId) {
+    public Mono<ResponseEntity<Object>> getById(long userId, long itemId) {
         return get("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> getAllForUser(long userId, int from, int size) {
+    public Mono<ResponseEntity<Object>> getAllForUser(long userId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -43,7 +39,7 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> searchByNameAndDescr(long userId, String text, int from, int size) {
+    public Mono<ResponseEntity<Object>> searchByNameAndDescr(long userId, String text, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
@@ -52,7 +48,31 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> create(long userId, long itemId, CommentDto comment) {
+    public Mono<ResponseEntity<Object>> suggestNames(long userId, String prefix, int size) {
+        Map<String, Object> parameters = Map.of(
+                "prefix", prefix,
+                "size", size
+        );
+        return get("/search/suggest?prefix={prefix}&size={size}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> getAvailability(long userId, long itemId, @Nullable LocalDateTime from,
+                                                        @Nullable LocalDateTime to, boolean includeWaiting) {
+        Map<String, Object> parameters = new HashMap<>();
+        StringBuilder path = new StringBuilder("/" + itemId + "/availability?includeWaiting={includeWaiting}");
+        parameters.put("includeWaiting", includeWaiting);
+        if (from != null) {
+            path.append("&from={from}");
+            parameters.put("from", from.toString());
+        }
+        if (to != null) {
+            path.append("&to={to}");
+            parameters.put("to", to.toString());
+        }
+        return get(path.toString(), userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> create(long userId, long itemId, CommentDto comment) {
         return post("/" + itemId + "/comment", userId, comment);
     }
 }
@@ -2,13 +2,17 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 
 @Slf4j
 @RestController
@@ -20,49 +24,77 @@ public class ItemController {
 
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader("X-Sharer-User-Id") long userId,
-                                         @RequestBody @Valid ItemDto item) {
+    public Mono<ResponseEntity<Object>> create(@RequestHeader("X-Sharer-User-Id") long userId,
+                                               @RequestBody @Valid ItemDto item) {
         log.info("Received request from user with id: {} to create item: {}", userId, item);
         return itemClient.create(userId, item);
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> update(@RequestHeader("X-Sharer-User-Id") long userId,
-                                         @PathVariable Long itemId,
-                                         @RequestBody ItemDto itemDto) {
+    public Mono<ResponseEntity<Object>> update(@RequestHeader("X-Sharer-User-Id") long userId,
+                                               @PathVariable Long itemId,
+                                               @RequestBody ItemDto itemDto,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                               String ifMatch) {
         log.info("Received request from user with Id {} to update item with id: {}, new data: {}",
                 userId, itemId, itemDto);
-        return itemClient.update(userId, itemId, itemDto);
+        return itemClient.update(userId, itemId, itemDto, ifMatch);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getById(@PathVariable long itemId,
-                                          @RequestHeader("X-Sharer-User-Id") long userId) {
+    public Mono<ResponseEntity<Object>> getById(@PathVariable long itemId,
+                                                @RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("Received request from user {} to get item with id: {}", userId, itemId);
         return itemClient.getById(userId, itemId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllForUser(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                @RequestParam(defaultValue = "10") @Positive int size) {
+    public Mono<ResponseEntity<Object>> getAllForUser(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                      @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                      @RequestParam(defaultValue = "10") @Positive int size) {
         log.info("Received request from user {} to get all items", userId);
         return itemClient.getAllForUser(userId, from, size);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> searchByNameAndDescr(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                       @RequestParam String text,
-                                                       @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                       @RequestParam(defaultValue = "10") @Positive int size) {
+    public Mono<ResponseEntity<Object>> searchByNameAndDescr(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                             @RequestParam String text,
+                                                             @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                             @RequestParam(defaultValue = "10") @Positive int size) {
         log.info("Received request from user {} to search items containing: {}", userId, text);
         return itemClient.searchByNameAndDescr(userId, text, from, size);
     }
 
+    @GetMapping("/search/suggest")
+    public Mono<ResponseEntity<Object>> suggestNames(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                     @RequestParam String prefix,
+                                                     @RequestParam(defaultValue = "10") @Positive int size) {
+        log.info("Received request from user {} to suggest item names starting with: {}", userId, prefix);
+        return itemClient.suggestNames(userId, prefix, size);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public Mono<ResponseEntity<Object>> getAvailability(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                        @PathVariable long itemId,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                        LocalDateTime from,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                        LocalDateTime to,
+                                                        @RequestParam(defaultValue = "false") boolean includeWaiting) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Availability window start must be before its end");
+        }
+        log.info("Received request from user {} to get availability of item {} from {} to {}",
+                userId, itemId, from, to);
+        return itemClient.getAvailability(userId, itemId, from, to, includeWaiting);
+    }
+
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> create(@RequestHeader("X-Sharer-User-Id") long userId,
-                                         @PathVariable long itemId,
-                                         @RequestBody @Valid CommentDto comment) {
+    public Mono<ResponseEntity<Object>> create(@RequestHeader("X-Sharer-User-Id") long userId,
+                                               @PathVariable long itemId,
+                                               @RequestBody @Valid CommentDto comment) {
         log.info("Received request from user with id: {} to create comment: {} about item with id: {} ",
                 userId, comment, itemId);
         return itemClient.create(userId, itemId, comment);
@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
@@ -19,14 +20,14 @@ public class RequestController {
     private final RequestClient requestClient;
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader("X-Sharer-User-Id") long userId,
-                                         @RequestBody @Valid ItemRequestDto requestDto) {
+    public Mono<ResponseEntity<Object>> create(@RequestHeader("X-Sharer-User-Id") long userId,
+                                               @RequestBody @Valid ItemRequestDto requestDto) {
         log.info("Received request to create request for Item: {} from User: {}", requestDto, userId);
         return requestClient.create(userId, requestDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getOwn(@RequestHeader("X-Sharer-User-Id") long userId) {
+    public Mono<ResponseEntity<Object>> getOwn(@RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("Received request to get all own requests from user: {}",
                 userId);
         return requestClient.getAllByUserId(userId);
@@ -34,9 +35,9 @@ public class RequestController {
 
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getAll(@RequestHeader("X-Sharer-User-Id") long userId,
-                                         @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                         @RequestParam(defaultValue = "10") @Positive int size) {
+    public Mono<ResponseEntity<Object>> getAll(@RequestHeader("X-Sharer-User-Id") long userId,
+                                               @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                               @RequestParam(defaultValue = "10") @Positive int size) {
         log.info("Received request to get page with all requests from user: {} from {} element and size {}",
                 userId,
                 from,
@@ -46,8 +47,8 @@ public class RequestController {
 
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getById(@RequestHeader("X-Sharer-User-Id") long userId,
-                                          @PathVariable long requestId) {
+    public Mono<ResponseEntity<Object>> getById(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                @PathVariable long requestId) {
         log.info("Received request to get request: {} from user: {}",
                 requestId, userId);
         return requestClient.getById(userId, requestId);
@@ -1,46 +1,38 @@
 package ru.practicum.shareit.user;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.GatewayTransportFactory;
 
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
-    @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public UserClient(GatewayTransportFactory transports) {
+        super(transports.createCached(API_PREFIX));
     }
 
-    public ResponseEntity<Object> getAll() {
+    public Mono<ResponseEntity<Object>> getAll() {
         return get("");
     }
 
-    public ResponseEntity<Object> getById(Long userId) {
+    public Mono<ResponseEntity<Object>> getById(Long userId) {
         return get("/" + userId);
     }
 
 
-    public ResponseEntity<Object> create(UserDto user) {
+    public Mono<ResponseEntity<Object>> create(UserDto user) {
         return post("", user);
     }
 
-    public ResponseEntity<Object> update(Long userId, UserDto user) {
-        return patch("/" + userId, user);
+    public Mono<ResponseEntity<Object>> update(Long userId, UserDto user, @Nullable String ifMatch) {
+        return patch("/" + userId, null, null, user, ifMatch);
     }
 
-    public ResponseEntity<Object> deleteById(Long userId) {
+    public Mono<ResponseEntity<Object>> deleteById(Long userId) {
         return delete("/" + userId);
     }
 }
@@ -2,8 +2,10 @@ package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 
@@ -18,31 +20,33 @@ public class UserController {
     private final UserClient userClient;
 
     @GetMapping
-    public ResponseEntity<Object> getAll() {
+    public Mono<ResponseEntity<Object>> getAll() {
         log.info("Received request to get all users");
         return userClient.getAll();
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> getById(@PathVariable Long userId) {
+    public Mono<ResponseEntity<Object>> getById(@PathVariable Long userId) {
         log.info("Received request to get user with id: {}", userId);
         return userClient.getById(userId);
     }
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestBody @Valid UserDto user) {
+    public Mono<ResponseEntity<Object>> create(@RequestBody @Valid UserDto user) {
         log.info("Received request to create user: {}", user);
         return userClient.create(user);
     }
 
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> update(@PathVariable Long userId, @RequestBody UserDto user) {
+    public Mono<ResponseEntity<Object>> update(@PathVariable Long userId, @RequestBody UserDto user,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                               String ifMatch) {
         log.info("Received request to update user with ID: {} - new data: {}", userId, user);
-        return userClient.update(userId, user);
+        return userClient.update(userId, user, ifMatch);
     }
 
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Object> deleteById(@PathVariable Long userId) {
+    public Mono<ResponseEntity<Object>> deleteById(@PathVariable Long userId) {
         log.info("Received request to delete user with id: {}", userId);
         return userClient.deleteById(userId);
     }
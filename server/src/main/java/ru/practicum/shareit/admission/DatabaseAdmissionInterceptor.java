@@ -0,0 +1,91 @@
+package ru.practicum.shareit.admission;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.practicum.shareit.exception.ServiceUnavailableException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets requests work only while the JDBC pool can serve them. Every request takes as many permits as
+ * connections it may hold at once ({@link DatabaseConnections}, one by default) out of the pool size,
+ * less the connections kept for scheduled jobs.
+ * With a large request thread pool the surplus requests wait here in arrival order
+ * instead of piling up on the connection pool, and are answered with 503 when the wait is too long.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.db-admission.enabled", havingValue = "true")
+public class DatabaseAdmissionInterceptor implements HandlerInterceptor, WebMvcConfigurer {
+    private static final String PERMIT_ATTRIBUTE = DatabaseAdmissionInterceptor.class.getName() + ".permit";
+
+    private final Semaphore permits;
+    private final int permitsTotal;
+    private final long timeoutNanos;
+
+    public DatabaseAdmissionInterceptor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                        @Value("${shareit.db-admission.reserved-connections:2}")
+                                        int reservedConnections,
+                                        @Value("${shareit.db-admission.timeout:5s}") Duration timeout,
+                                        MeterRegistry meterRegistry) {
+        int connections = Math.max(1, poolSize - reservedConnections);
+        this.permits = new Semaphore(connections, true);
+        this.permitsTotal = connections;
+        this.timeoutNanos = timeout.toNanos();
+        Gauge.builder("shareit.db.admission.waiting", permits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+        Gauge.builder("shareit.db.admission.available", permits, Semaphore::availablePermits)
+                .register(meterRegistry);
+        log.info("Database admission enabled: {} of {} connections for requests, timeout {}",
+                connections, poolSize, timeout);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws InterruptedException {
+        int connections = connectionsOf(handler);
+        if (!permits.tryAcquire(connections, timeoutNanos, TimeUnit.NANOSECONDS)) {
+            log.warn("No database capacity for {} {}", request.getMethod(), request.getRequestURI());
+            throw new ServiceUnavailableException("Server is busy, try again later");
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, connections);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object connections = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (connections != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release((Integer) connections);
+        }
+    }
+
+    private int connectionsOf(Object handler) {
+        if (handler instanceof HandlerMethod) {
+            DatabaseConnections connections = ((HandlerMethod) handler).getMethodAnnotation(DatabaseConnections.class);
+            if (connections != null) {
+                return Math.min(connections.value(), permitsTotal);
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * How many JDBC connections a handler may hold at the same time, e.g. two for a request that runs
+ * two lookups in parallel. Handlers without it hold one: request threads run without a surrounding
+ * transaction, and booking commands hold only the connection of their sequencer worker.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DatabaseConnections {
+    int value();
+}
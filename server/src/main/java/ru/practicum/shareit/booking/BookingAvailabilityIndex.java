@@ -0,0 +1,152 @@
+package ru.practicum.shareit.booking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static java.time.LocalDateTime.now;
+import static ru.practicum.shareit.booking.status.Status.APPROVED;
+
+/**
+ * In-memory per-item index of approved booking intervals that have not ended yet.
+ * Approved bookings of one item never overlap, so intervals are kept in a map sorted by start
+ * and a conflict check is a single floor lookup. Ended intervals are trimmed on access; ranges
+ * in the past are left to the overlap trigger of the bookings table.
+ * Timelines are loaded lazily into a bounded cache, outside of the cache's own locking, so a slow
+ * load never blocks lookups of other items.
+ */
+@Slf4j
+@Component
+public class BookingAvailabilityIndex {
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, ItemTimeline> timelines;
+
+    public BookingAvailabilityIndex(BookingRepository bookingRepository,
+                                    @Value("${shareit.availability-index.maximum-size:10000}") long maximumSize,
+                                    @Value("${shareit.availability-index.expire-after-access:30m}") Duration ttl,
+                                    MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, timelines, "bookingAvailability");
+    }
+
+    public boolean isFree(long itemId, LocalDateTime start, LocalDateTime end, Long exceptBookingId) {
+        return getTimeline(itemId).findConflict(start, end, exceptBookingId) == null;
+    }
+
+    public void onApproved(Booking booking) {
+        afterCommit(() -> getTimeline(booking.getItem().getId()).add(booking));
+    }
+
+    public void onRejected(Booking booking) {
+        afterCommit(() -> getTimeline(booking.getItem().getId()).remove(booking));
+    }
+
+    public void evict(long itemId) {
+        timelines.invalidate(itemId);
+    }
+
+    /**
+     * Loads a missing timeline without holding the cache's lock. When two threads load the same item,
+     * the first one stored wins and the other thread applies its change to it, so an update made
+     * after commit is never lost to a load that read the table before that commit.
+     */
+    private ItemTimeline getTimeline(long itemId) {
+        ItemTimeline timeline = timelines.getIfPresent(itemId);
+        if (timeline != null) {
+            return timeline;
+        }
+        ItemTimeline loaded = loadTimeline(itemId);
+        ItemTimeline raced = timelines.asMap().putIfAbsent(itemId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private ItemTimeline loadTimeline(long itemId) {
+        ItemTimeline timeline = new ItemTimeline();
+        bookingRepository.findAllByItemIdAndStatusAndEndAfter(itemId, APPROVED, now())
+                .forEach(timeline::add);
+        log.debug("Loaded {} approved bookings of item {} into availability index", timeline.size(), itemId);
+        return timeline;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static class ItemTimeline {
+        private final NavigableMap<LocalDateTime, Interval> byStart = new TreeMap<>();
+
+        synchronized Interval findConflict(LocalDateTime start, LocalDateTime end, Long exceptBookingId) {
+            trimEnded();
+            Map.Entry<LocalDateTime, Interval> entry = byStart.lowerEntry(end);
+            while (entry != null && entry.getValue().end.isAfter(start)) {
+                if (!entry.getValue().bookingId.equals(exceptBookingId)) {
+                    return entry.getValue();
+                }
+                entry = byStart.lowerEntry(entry.getKey());
+            }
+            return null;
+        }
+
+        synchronized void add(Booking booking) {
+            trimEnded();
+            if (booking.getEnd().isAfter(now())) {
+                byStart.put(booking.getStart(), new Interval(booking.getId(), booking.getEnd()));
+            }
+        }
+
+        synchronized void remove(Booking booking) {
+            byStart.remove(booking.getStart(), new Interval(booking.getId(), booking.getEnd()));
+        }
+
+        synchronized int size() {
+            return byStart.size();
+        }
+
+        /**
+         * Intervals do not overlap, so ordered by start they are ordered by end as well
+         * and the ended ones are always at the head of the map.
+         */
+        private void trimEnded() {
+            LocalDateTime now = now();
+            while (!byStart.isEmpty() && !byStart.firstEntry().getValue().end.isAfter(now)) {
+                byStart.pollFirstEntry();
+            }
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Interval {
+        private final Long bookingId;
+
+        private final LocalDateTime end;
+    }
+}
@@ -5,12 +5,21 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecision;
+import ru.practicum.shareit.booking.dto.BookingDecisionResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.dto.BookingSlice;
 import ru.practicum.shareit.booking.state.State;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.StateValidator;
+import ru.practicum.shareit.version.ETags;
 
 import java.util.List;
 
@@ -27,7 +36,13 @@ import static org.springframework.data.domain.Sort.Direction.DESC;
 @Validated
 @RequestMapping(path = "/bookings")
 public class BookingController {
+    /**
+     * Carries the cursor of the next page, so cursor pages have the same body as offset pages.
+     */
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService bookingService;
+    private final BookingCountsService countsService;
 
 
     @PostMapping
@@ -39,46 +54,111 @@ public class BookingController {
     }
 
 
+    @PostMapping("/batch")
+    public List<BookingDto> createAll(@RequestBody List<BookingRequest> bookingRequests,
+                                      @RequestHeader("X-Sharer-User-Id") long bookerId) {
+        log.info("Received request from user with id: {} to create {} bookings", bookerId, bookingRequests.size());
+        return bookingService.createAll(bookingRequests, bookerId);
+    }
+
+
+    @PatchMapping("/batch")
+    public List<BookingDecisionResult> decideAll(@RequestBody List<BookingDecision> decisions,
+                                                 @RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Received request from user with Id {} to decide {} bookings", userId, decisions.size());
+        return bookingService.decideAll(decisions, userId);
+    }
+
+
     @PatchMapping("/{bookingId}")
-    public BookingDto approve(@PathVariable Long bookingId,
-                              @RequestHeader("X-Sharer-User-Id") long userId,
-                              @RequestParam boolean approved) {
+    public ResponseEntity<BookingDto> approve(@PathVariable Long bookingId,
+                                              @RequestHeader("X-Sharer-User-Id") long userId,
+                                              @RequestParam boolean approved,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                              String ifMatch) {
         log.info("Received request from user with Id {} to " +
                 (approved ? "approve" : "reject") +
                 " booking with id: {}", userId, bookingId);
-        return bookingService.approve(bookingId, userId, approved);
+        BookingDto booking = bookingService.approve(bookingId, userId, approved, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(booking, booking.getVersion());
+    }
+
+
+    @GetMapping("/summary")
+    public BookingCountsDto getCountsForBooker(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Арендатор {} запросил количество своих бронирований по состояниям", userId);
+        return countsService.getCounts(userId, true);
+    }
+
+
+    @GetMapping("/owner/summary")
+    public BookingCountsDto getCountsForOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Владелец {} запросил количество бронирований его вещей по состояниям", userId);
+        return countsService.getCounts(userId, false);
     }
 
 
     @GetMapping("/{bookingId}")
-    public BookingDto getById(@PathVariable long bookingId, @RequestHeader("X-Sharer-User-Id") long userId) {
+    public ResponseEntity<BookingDto> getById(@PathVariable long bookingId,
+                                              @RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("Received request from user {} to get booking with id: {}", userId, bookingId);
-        return bookingService.getById(bookingId, userId);
+        BookingDto booking = bookingService.getById(bookingId, userId);
+        return ETags.ok(booking, booking.getVersion());
     }
 
 
     @GetMapping
-    public List<BookingDto> getAllForBooker(@RequestHeader("X-Sharer-User-Id") long userId,
-                                            @RequestParam(defaultValue = "ALL") String state,
-                                            @RequestParam(defaultValue = "0") int from,
-                                            @RequestParam(defaultValue = "10") int size) {
-        Sort sort = Sort.by(DESC, "start");
-        Pageable page = PageRequest.of(from / size, size, sort);
+    public ResponseEntity<List<BookingDto>> getAllForBooker(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                            @RequestParam(defaultValue = "ALL") String state,
+                                                            @RequestParam(defaultValue = "0") int from,
+                                                            @RequestParam(defaultValue = "10") int size,
+                                                            @RequestParam(required = false) String after) {
         State stateEnum = StateValidator.checkState(state);
+        checkPaging(from, size);
         log.info("Арендатор {} запросил предоставить {} его бронирования", userId, stateEnum.getState());
-        return bookingService.getAllForUserByState(userId, stateEnum, true, page);
+        if (after != null) {
+            return toResponse(bookingService.getAllForUserByState(
+                    userId, stateEnum, true, after.isEmpty() ? null : BookingCursor.decode(after), size));
+        }
+        Sort sort = Sort.by(DESC, "start");
+        Pageable page = PageRequest.of(from / size, size, sort);
+        return ResponseEntity.ok(bookingService.getAllForUserByState(userId, stateEnum, true, page));
     }
 
 
     @GetMapping("/owner")
-    public List<BookingDto> getAllForOwner(@RequestHeader("X-Sharer-User-Id") long userId,
-                                           @RequestParam(defaultValue = "ALL") String state,
-                                           @RequestParam(defaultValue = "0") int from,
-                                           @RequestParam(defaultValue = "10") int size) {
-        Sort sort = Sort.by(DESC, "start");
-        Pageable page = PageRequest.of(from / size, size, sort);
+    public ResponseEntity<List<BookingDto>> getAllForOwner(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                           @RequestParam(defaultValue = "ALL") String state,
+                                                           @RequestParam(defaultValue = "0") int from,
+                                                           @RequestParam(defaultValue = "10") int size,
+                                                           @RequestParam(required = false) String after) {
         State stateEnum = StateValidator.checkState(state);
+        checkPaging(from, size);
         log.info("Владелец {} запросил предоставить {} бронирования его вещей", userId, stateEnum.getState());
-        return bookingService.getAllForUserByState(userId, stateEnum, false, page);
+        if (after != null) {
+            return toResponse(bookingService.getAllForUserByState(
+                    userId, stateEnum, false, after.isEmpty() ? null : BookingCursor.decode(after), size));
+        }
+        Sort sort = Sort.by(DESC, "start");
+        Pageable page = PageRequest.of(from / size, size, sort);
+        return ResponseEntity.ok(bookingService.getAllForUserByState(userId, stateEnum, false, page));
+    }
+
+
+    private void checkPaging(int from, int size) {
+        if (from < 0 || size <= 0) {
+            throw new BadRequestException(
+                    String.format("Invalid paging: from %s must not be negative and size %s must be positive",
+                            from, size));
+        }
+    }
+
+
+    private ResponseEntity<List<BookingDto>> toResponse(BookingSlice slice) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (slice.getNext() != null) {
+            response.header(NEXT_CURSOR_HEADER, slice.getNext());
+        }
+        return response.body(slice.getBookings());
     }
 }
\ No newline at end of file
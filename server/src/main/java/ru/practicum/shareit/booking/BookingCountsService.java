@@ -0,0 +1,69 @@
+package ru.practicum.shareit.booking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingCountsView;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static java.time.LocalDateTime.now;
+
+/**
+ * Booking counts per state for a booker or an owner, computed by one aggregate query
+ * with the same state boundaries as the booking lists and cached for a short time per user.
+ */
+@Slf4j
+@Service
+public class BookingCountsService {
+    private final BookingRepository bookingRepository;
+    private final UserService userService;
+    private final Cache<Key, BookingCountsDto> counts;
+
+    public BookingCountsService(BookingRepository bookingRepository,
+                                UserService userService,
+                                @Value("${shareit.booking-counts.ttl:10s}") Duration ttl,
+                                @Value("${shareit.booking-counts.maximum-size:10000}") long maximumSize,
+                                MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.userService = userService;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, counts, "bookingCounts");
+    }
+
+    public BookingCountsDto getCounts(long userId, boolean isBooker) {
+        userService.existsById(userId);
+        return counts.get(new Key(userId, isBooker), key -> load(userId, isBooker));
+    }
+
+    private BookingCountsDto load(long userId, boolean isBooker) {
+        LocalDateTime now = now();
+        BookingCountsView view = isBooker
+                ? bookingRepository.countByStateForBooker(userId, now)
+                : bookingRepository.countByStateForOwner(userId, now);
+        log.info("Booking counts of {} {}: {} in total", isBooker ? "booker" : "owner", userId, view.getAll());
+        return new BookingCountsDto(view.getAll(), view.getCurrent(), view.getPast(), view.getFuture(),
+                view.getWaiting(), view.getRejected());
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        private final long userId;
+
+        private final boolean booker;
+    }
+}
@@ -3,6 +3,9 @@ package ru.practicum.shareit.booking;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingRequest;
 import ru.practicum.shareit.booking.dto.BookingShort;
+import ru.practicum.shareit.booking.dto.BookingsByItem;
+import ru.practicum.shareit.booking.dto.BookingsByItemView;
+import ru.practicum.shareit.booking.status.Status;
 import ru.practicum.shareit.item.dto.ItemShort;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
@@ -31,6 +34,7 @@ public class BookingMapper {
                 .status(booking.getStatus())
                 .booker(new UserId(booking.getBooker().getId()))
                 .item(new ItemShort(booking.getItem().getId(), booking.getItem().getName()))
+                .version(booking.getVersion())
                 .build();
     }
 
@@ -51,4 +55,23 @@ public class BookingMapper {
                 .bookerId(booking.getBooker().getId())
                 .build();
     }
+
+
+    public static BookingsByItem viewToBookingsByItem(BookingsByItemView view) {
+        BookingShort lastBooking = view.getLastId() == null ? null : BookingShort.builder()
+                .id(view.getLastId())
+                .start(view.getLastStart())
+                .end(view.getLastEnd())
+                .status(Status.APPROVED)
+                .bookerId(view.getLastBookerId())
+                .build();
+        BookingShort nextBooking = view.getNextId() == null ? null : BookingShort.builder()
+                .id(view.getNextId())
+                .start(view.getNextStart())
+                .end(view.getNextEnd())
+                .status(Status.APPROVED)
+                .bookerId(view.getNextBookerId())
+                .build();
+        return new BookingsByItem(view.getItemId(), lastBooking, nextBooking, view.getRentCounter());
+    }
 }
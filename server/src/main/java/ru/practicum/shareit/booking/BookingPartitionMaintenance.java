@@ -0,0 +1,137 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps monthly range partitions of the bookings table.
+ * Partitions are created a few months ahead of the current one, and on demand before a booking
+ * starting later than that is inserted, so the default partition stays empty and never has to be split.
+ * All partition DDL takes the cluster-wide lock of create_bookings_partition, so several instances
+ * can run this at the same time.
+ * When a retention period is set, older partitions are detached from bookings and kept
+ * as standalone archive tables; their approved rentals are kept in booking_rentals first.
+ */
+@Slf4j
+@Component
+public class BookingPartitionMaintenance {
+    private static final Pattern PARTITION_NAME = Pattern.compile("bookings_(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Set<YearMonth> createdMonths = ConcurrentHashMap.newKeySet();
+
+    public BookingPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       @Value("${shareit.booking-partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${shareit.booking-partitions.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.booking-partitions.cron:0 0 3 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+        }
+        if (retentionMonths > 0) {
+            archivePartitionsBefore(current.minusMonths(retentionMonths));
+        }
+    }
+
+    /**
+     * Makes sure the partition for a booking starting at the given time exists before the booking is inserted.
+     * Must be called outside of a transaction.
+     */
+    public void ensurePartitionFor(LocalDateTime start) {
+        YearMonth month = YearMonth.from(start);
+        if (!createdMonths.contains(month)) {
+            createPartition(month);
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        Boolean created = jdbcTemplate.queryForObject("SELECT create_bookings_partition(?)", Boolean.class,
+                month.atDay(1));
+        createdMonths.add(month);
+        if (Boolean.TRUE.equals(created)) {
+            log.info("Created bookings partition for {}", month);
+        }
+    }
+
+    private void archivePartitionsBefore(YearMonth firstKept) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname " +
+                        "FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass('bookings')", String.class);
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (month.isBefore(firstKept)) {
+                Boolean archived = transactionTemplate.execute(status -> {
+                    jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('bookings_partitions'), 0)");
+                    if (!isAttached(partition)) {
+                        return false;
+                    }
+                    keepRentals(partition);
+                    jdbcTemplate.execute("ALTER TABLE bookings DETACH PARTITION " + partition);
+                    jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO " + partition + "_archive");
+                    return true;
+                });
+                createdMonths.remove(month);
+                if (Boolean.TRUE.equals(archived)) {
+                    log.info("Bookings partition {} detached to archive table {}_archive", partition, partition);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the approved rentals of a partition about to be archived into booking_rentals, which comment
+     * eligibility and rent counters read together with bookings. Last bookings are already copied
+     * into item_booking_summary.
+     */
+    private void keepRentals(String partition) {
+        int rentals = jdbcTemplate.update(
+                "INSERT INTO booking_rentals (item_id, booker_id, rentals, last_end) " +
+                        "SELECT item_id, booker_id, COUNT(*), MAX(end_date) " +
+                        "FROM " + partition + " " +
+                        "WHERE status = 'APPROVED' " +
+                        "GROUP BY item_id, booker_id " +
+                        "ON CONFLICT (item_id, booker_id) DO UPDATE " +
+                        "SET rentals = booking_rentals.rentals + EXCLUDED.rentals, " +
+                        "    last_end = GREATEST(booking_rentals.last_end, EXCLUDED.last_end)");
+        log.info("Kept {} item rentals of bookings partition {}", rentals, partition);
+    }
+
+    private boolean isAttached(String partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS(SELECT 1 FROM pg_inherits " +
+                        "WHERE inhrelid = to_regclass(?) AND inhparent = to_regclass('bookings'))",
+                Boolean.class, partition));
+    }
+}
@@ -1,43 +1,213 @@
 package ru.practicum.shareit.booking;
 
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingAccessView;
+import ru.practicum.shareit.booking.dto.BookingCountsView;
+import ru.practicum.shareit.booking.dto.BookingsByItemView;
 import ru.practicum.shareit.booking.status.Status;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Long>, QuerydslPredicateExecutor<Booking> {
-    @Query("SELECT b " +
-            "FROM Booking b " +
-            "WHERE (?1 <= b.end) AND (?2 >= b.start)" +
-            "AND b.status = 'APPROVED'")
-    List<Booking> findAllByDateInterfering(LocalDateTime start, LocalDateTime end);
+public interface BookingRepository extends JpaRepository<Booking, Long>, QuerydslPredicateExecutor<Booking>,
+        BookingRepositoryCustom {
+    @Override
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Page<Booking> findAll(Predicate predicate, Pageable pageable);
 
-    @Query("SELECT b " +
-            "FROM Booking b " +
-            "         WHERE b.start = (SELECT MAX(b1.start) " +
-            "                          FROM Booking b1 " +
-            "                          WHERE b1.item.id = b.item.id " +
-            "                          AND b1.start <= ?2) " +
-            "         AND b.item.id IN ?1 " +
-            "         AND b.status = 'APPROVED' ")
-    List<Booking> findLastBookings(List<Long> itemIds, LocalDateTime now);
+    @Query(value = "SELECT * " +
+            "FROM bookings b " +
+            "WHERE b.item_id = ?1 " +
+            "AND b.during && tsrange(?2, ?3, '[)') " +
+            "AND b.status = 'APPROVED'", nativeQuery = true)
+    List<Booking> findAllByDateInterfering(Long itemId, LocalDateTime start, LocalDateTime end);
+
+    @Query(value = "SELECT * " +
+            "FROM bookings b " +
+            "WHERE b.item_id = ?1 " +
+            "AND b.during && tsrange(?2, ?3, '[)') " +
+            "ORDER BY b.start_date", nativeQuery = true)
+    List<Booking> findAllByItemIdInWindow(Long itemId, LocalDateTime start, LocalDateTime end);
+
+    List<Booking> findAllByItemIdAndStatusAndEndAfter(Long itemId, Status status, LocalDateTime end);
+
+    @Query(value = "SELECT i.id AS \"itemId\", " +
+            "       s.last_booking_id AS \"lastId\", s.last_start AS \"lastStart\", " +
+            "       s.last_end AS \"lastEnd\", s.last_booker_id AS \"lastBookerId\", " +
+            "       n.id AS \"nextId\", n.start_date AS \"nextStart\", n.end_date AS \"nextEnd\", " +
+            "       n.booker_id AS \"nextBookerId\", " +
+            "       COALESCE(s.rent_counter, 0) AS \"rentCounter\" " +
+            "FROM items i " +
+            "LEFT JOIN item_booking_summary s ON s.item_id = i.id " +
+            "LEFT JOIN bookings n ON n.id = s.next_booking_id " +
+            "WHERE i.id IN (?1)", nativeQuery = true)
+    List<BookingsByItemView> findSummariesByItems(Collection<Long> itemIds);
+
+    /**
+     * Computes summaries of the given items from bookings as of now without storing them, for summaries whose
+     * next booking has already started and that are not rolled forward yet. The stored last booking is used
+     * when the item has none left in bookings because its partition was archived.
+     */
+    @Query(value = "SELECT i.id AS \"itemId\", " +
+            "       COALESCE(l.id, s.last_booking_id) AS \"lastId\", " +
+            "       COALESCE(l.start_date, s.last_start) AS \"lastStart\", " +
+            "       COALESCE(l.end_date, s.last_end) AS \"lastEnd\", " +
+            "       COALESCE(l.booker_id, s.last_booker_id) AS \"lastBookerId\", " +
+            "       n.id AS \"nextId\", n.start_date AS \"nextStart\", n.end_date AS \"nextEnd\", " +
+            "       n.booker_id AS \"nextBookerId\", " +
+            "       COALESCE(s.rent_counter, 0) AS \"rentCounter\" " +
+            "FROM items i " +
+            "LEFT JOIN item_booking_summary s ON s.item_id = i.id " +
+            "LEFT JOIN LATERAL (SELECT b.id, b.start_date, b.end_date, b.booker_id " +
+            "                   FROM bookings b " +
+            "                   WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date <= ?2 " +
+            "                   ORDER BY b.start_date DESC " +
+            "                   LIMIT 1) l ON TRUE " +
+            "LEFT JOIN LATERAL (SELECT b.id, b.start_date, b.end_date, b.booker_id " +
+            "                   FROM bookings b " +
+            "                   WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date > ?2 " +
+            "                   ORDER BY b.start_date " +
+            "                   LIMIT 1) n ON TRUE " +
+            "WHERE i.id IN (?1)", nativeQuery = true)
+    List<BookingsByItemView> computeSummariesByItems(Collection<Long> itemIds, LocalDateTime now);
+
+    /**
+     * Recomputes the summaries of the given items. When the last booking is no longer found in bookings
+     * because its partition was archived, the copy already kept in the summary stays.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO item_booking_summary " +
+            "    (item_id, last_booking_id, last_start, last_end, last_booker_id, " +
+            "     next_booking_id, next_start, rent_counter) " +
+            "SELECT i.id, l.id, l.start_date, l.end_date, l.booker_id, n.id, n.start_date, " +
+            "       (SELECT COUNT(*) " +
+            "        FROM bookings c " +
+            "        WHERE c.item_id = i.id AND c.status = 'APPROVED') " +
+            "       + COALESCE((SELECT SUM(r.rentals) FROM booking_rentals r WHERE r.item_id = i.id), 0) " +
+            "FROM items i " +
+            "LEFT JOIN LATERAL (SELECT b.id, b.start_date, b.end_date, b.booker_id " +
+            "                   FROM bookings b " +
+            "                   WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date <= ?2 " +
+            "                   ORDER BY b.start_date DESC " +
+            "                   LIMIT 1) l ON TRUE " +
+            "LEFT JOIN LATERAL (SELECT b.id, b.start_date " +
+            "                   FROM bookings b " +
+            "                   WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date > ?2 " +
+            "                   ORDER BY b.start_date " +
+            "                   LIMIT 1) n ON TRUE " +
+            "WHERE i.id IN (?1) " +
+            "ON CONFLICT (item_id) DO UPDATE " +
+            "SET last_booking_id = COALESCE(EXCLUDED.last_booking_id, item_booking_summary.last_booking_id), " +
+            "    last_start = COALESCE(EXCLUDED.last_start, item_booking_summary.last_start), " +
+            "    last_end = COALESCE(EXCLUDED.last_end, item_booking_summary.last_end), " +
+            "    last_booker_id = COALESCE(EXCLUDED.last_booker_id, item_booking_summary.last_booker_id), " +
+            "    next_booking_id = EXCLUDED.next_booking_id, " +
+            "    next_start = EXCLUDED.next_start, " +
+            "    rent_counter = EXCLUDED.rent_counter", nativeQuery = true)
+    void refreshSummaries(Collection<Long> itemIds, LocalDateTime now);
+
+    @Query(value = "SELECT s.item_id " +
+            "FROM item_booking_summary s " +
+            "WHERE s.next_start <= ?1", nativeQuery = true)
+    List<Long> findItemIdsWithSummaryDue(LocalDateTime now);
 
+    @Query(value = "SELECT COUNT(*) AS \"all\", " +
+            "COUNT(*) FILTER (WHERE b.start_date < ?2 AND b.end_date > ?2) AS \"current\", " +
+            "COUNT(*) FILTER (WHERE b.end_date < ?2) AS \"past\", " +
+            "COUNT(*) FILTER (WHERE b.start_date > ?2) AS \"future\", " +
+            "COUNT(*) FILTER (WHERE b.status = 'WAITING') AS \"waiting\", " +
+            "COUNT(*) FILTER (WHERE b.status = 'REJECTED') AS \"rejected\" " +
+            "FROM bookings b " +
+            "WHERE b.booker_id = ?1", nativeQuery = true)
+    BookingCountsView countByStateForBooker(long bookerId, LocalDateTime now);
+
+    @Query(value = "SELECT COUNT(*) AS \"all\", " +
+            "COUNT(*) FILTER (WHERE b.start_date < ?2 AND b.end_date > ?2) AS \"current\", " +
+            "COUNT(*) FILTER (WHERE b.end_date < ?2) AS \"past\", " +
+            "COUNT(*) FILTER (WHERE b.start_date > ?2) AS \"future\", " +
+            "COUNT(*) FILTER (WHERE b.status = 'WAITING') AS \"waiting\", " +
+            "COUNT(*) FILTER (WHERE b.status = 'REJECTED') AS \"rejected\" " +
+            "FROM bookings b " +
+            "JOIN items i ON i.id = b.item_id " +
+            "WHERE i.owner_id = ?1", nativeQuery = true)
+    BookingCountsView countByStateForOwner(long ownerId, LocalDateTime now);
+
+    /**
+     * Bookings among the given ids that the owner can still decide: waiting bookings of the owner's items
+     * made by someone else.
+     */
+    @EntityGraph(attributePaths = {"item", "booker"})
     @Query("SELECT b " +
             "FROM Booking b " +
-            "         WHERE b.start = (SELECT MIN(b1.start) " +
-            "                          FROM Booking b1 " +
-            "                          WHERE b1.item.id = b.item.id " +
-            "                          AND b1.start > ?2) " +
-            "         AND b.item.id IN ?1 " +
-            "         AND b.status = 'APPROVED' ")
-    List<Booking> findNextBookings(List<Long> itemIds, LocalDateTime now);
+            "WHERE b.id IN ?1 " +
+            "AND b.item.owner.id = ?2 " +
+            "AND b.booker.id <> ?2 " +
+            "AND b.status = ?3")
+    List<Booking> findAllDecidable(Collection<Long> ids, long ownerId, Status status);
+
+    @Query(value = "SELECT b.id AS \"id\", b.status AS \"status\", " +
+            "       i.owner_id AS \"ownerId\", b.booker_id AS \"bookerId\" " +
+            "FROM bookings b " +
+            "JOIN items i ON i.id = b.item_id " +
+            "WHERE b.id IN (?1)", nativeQuery = true)
+    List<BookingAccessView> findAccessByIds(Collection<Long> ids);
+
+    /**
+     * Those of the given bookings that overlap an approved booking of the same item. Ids are passed
+     * as a Postgres array literal such as {1,2,3}.
+     */
+    @Query(value = "SELECT DISTINCT c.id " +
+            "FROM bookings c " +
+            "JOIN bookings a ON a.item_id = c.item_id " +
+            "    AND a.during && c.during " +
+            "    AND a.status = 'APPROVED' " +
+            "    AND a.id <> c.id " +
+            "WHERE c.id = ANY(CAST(?1 AS BIGINT[]))", nativeQuery = true)
+    List<Long> findIdsOverlappingApproved(String ids);
+
+    /**
+     * Decides all given waiting bookings in one statement. Ids are passed as Postgres array literals
+     * such as {1,2,3}, so an empty set of approved ids is still a valid query.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE bookings " +
+            "SET status = CASE WHEN id = ANY(CAST(?1 AS BIGINT[])) THEN 'APPROVED' ELSE 'REJECTED' END, " +
+            "    version = version + 1 " +
+            "WHERE id = ANY(CAST(?2 AS BIGINT[])) " +
+            "AND status = 'WAITING'", nativeQuery = true)
+    int decideWaiting(String approvedIds, String decidedIds);
 
+    /**
+     * Whether the user has finished an approved rental of the item, including rentals in archived partitions.
+     */
+    @Query(value = "SELECT EXISTS(SELECT 1 " +
+            "              FROM bookings b " +
+            "              WHERE b.item_id = ?1 AND b.booker_id = ?2 AND b.end_date < ?3 " +
+            "                AND b.status = 'APPROVED') " +
+            "    OR EXISTS(SELECT 1 " +
+            "              FROM booking_rentals r " +
+            "              WHERE r.item_id = ?1 AND r.booker_id = ?2 AND r.last_end < ?3)", nativeQuery = true)
+    boolean hasFinishedRental(long itemId, long bookerId, LocalDateTime now);
 
-    boolean existsByItemIdAndBookerIdAndEndBeforeAndStatus(Long itemId, Long bookerId, LocalDateTime now, Status approved);
+    @Query("SELECT b.item.id FROM Booking b WHERE b.id = ?1")
+    Optional<Long> findItemIdById(long bookingId);
+
+    @Query("SELECT DISTINCT b.item.id FROM Booking b WHERE b.id IN ?1")
+    List<Long> findItemIdsByIdIn(Collection<Long> bookingIds);
+
+    @EntityGraph(attributePaths = {"item", "booker"})
+    List<Booking> findAllByIdIn(Collection<Long> ids);
 
     Optional<Booking> findByIdAndBookerIdNot(long bookingId, long userId);
 
@@ -47,46 +217,3 @@ public interface BookingRepository extends JpaRepository<Booking, Long>, Queryds
             "AND (b.booker.id = ?2 OR b.item.owner.id = ?2) ")
     Optional<Booking> findByIdAndByBookerOrOwner(long bookingId, long userId);
 }
-
-/*("SELECT new ru.practicum.shareit.booking.dto.BookingsByItem( " +
-        "   b1.item.id, b2, b3, COUNT(b1.id)) " +
-        "FROM Booking b1 " +
-        "LEFT JOIN Booking b2 ON b1.item.id = b2.item.id " +
-        "AND b2.start = (SELECT MAX(b4.start) " +
-        "                 FROM Booking b4 " +
-        "                 WHERE b4.start <= ?2 AND b4.item.id IN ?1 " +
-        "                 GROUP BY b4.item.id) " +
-        "LEFT JOIN Booking b3 ON b1.item.id = b3.item.id " +
-        "AND b3.start = (SELECT MIN(b5.start) " +
-        "                 FROM Booking b5 " +
-        "                 WHERE b5.start > ?2 AND b5.item.id IN ?1 " +
-        "                 GROUP BY b5.item.id) " +
-        "WHERE b1.item.id IN ?1 AND b1.status = 'APPROVED' " +
-        "GROUP BY b1.item.id, b2, b3")*/
-
-////////////////////////////////////////////////////////
-/*"WITH bookingByItem AS ( " +
-        "SELECT b.item.id AS itemId, " +
-        "MAX(b1.id) AS last, " +
-        "MIN(b2.id) AS next, " +
-        "COUNT(b.id) AS rentCounter " +
-        "FROM Booking b " +
-        "LEFT JOIN Booking b1 ON b1.id = b.id " +
-        "AND b1.start = (SELECT MAX(b.start) " +
-        "                 FROM Booking b " +
-        "                 WHERE b.start <= ?2 AND b.item.id = b1.item.id " +
-        "                ) " +
-        "LEFT JOIN Booking b2 ON b.id = b2.id " +
-        "AND b2.start = (SELECT MIN(b.start) " +
-        "                 FROM Booking b " +
-        "                 WHERE b.start > ?2 AND b.item.id = b2.item.id " +
-        "                ) " +
-        "WHERE b1.item.id IN ?1 AND b1.status = 'APPROVED' " +
-        "GROUP BY b.item.id) " +
-        "SELECT new ru.practicum.shareit.booking.dto.BookingsByItem( " +
-        "bi.itemId, b1, b2, bi.rentCounter " +
-        "FROM bookingByItem bi " +
-        "LEFT JOIN Booking b1 ON b1.item.it = bi.itemId AND b1.id = bi.last " +
-        "LEFT JOIN Booking b2 ON b2.item.it = bi.itemId AND b2.id = bi.next ")*/
-
-
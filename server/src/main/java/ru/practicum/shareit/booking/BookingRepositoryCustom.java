@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking;
+
+import com.querydsl.core.types.Predicate;
+
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+    List<Booking> findAllOrderedByStartDesc(Predicate predicate, int limit);
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static ru.practicum.shareit.booking.QBooking.booking;
+
+@Repository
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Booking> findAllOrderedByStartDesc(Predicate predicate, int limit) {
+        return new JPAQueryFactory(entityManager)
+                .selectFrom(booking)
+                .innerJoin(booking.item).fetchJoin()
+                .innerJoin(booking.booker).fetchJoin()
+                .where(predicate)
+                .orderBy(booking.start.desc(), booking.id.desc())
+                .limit(limit)
+                .fetch();
+    }
+}
@@ -0,0 +1,282 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.ServiceUnavailableException;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Serializes booking commands per item.
+ * Every item with pending commands has its own mailbox. A mailbox is drained by one worker of a shared pool
+ * at a time, so commands for the same item run one after another in arrival order, while other items are
+ * processed by the other workers. Consecutive commands of the same kind in a mailbox are handed to their
+ * action together, so it can check and write them at once.
+ * Commands spanning several items run once they are next in all of their mailboxes. Commands are added to
+ * all mailboxes under one lock, so mailboxes never disagree on the order of two commands and cannot wait
+ * on each other. Commands issued from a worker run inline to avoid waiting on their own mailbox.
+ */
+@Slf4j
+@Component
+public class BookingSequencer {
+    private static final String QUEUE_METRIC = "shareit.booking.sequencer.queue";
+    private static final String WAIT_METRIC = "shareit.booking.sequencer.wait";
+    private static final String BATCH_METRIC = "shareit.booking.sequencer.batch";
+
+    private static final ThreadLocal<Boolean> IN_WORKER = ThreadLocal.withInitial(() -> false);
+
+    private final Map<Long, Deque<Entry>> mailboxes = new HashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ThreadPoolExecutor workers;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSizes;
+
+    public BookingSequencer(@Value("${shareit.booking-sequencer.workers:16}") int workerCount,
+                            @Value("${shareit.booking-sequencer.queue-capacity:1000}") int queueCapacity,
+                            @Value("${shareit.booking-sequencer.batch-size:50}") int batchSize,
+                            MeterRegistry meterRegistry) {
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "booking-sequencer-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder(QUEUE_METRIC, pending, AtomicInteger::get)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder(BATCH_METRIC)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the command after all earlier commands of the item. Commands of the same name waiting
+     * in the mailbox of the item run in one call of the action, up to the batch size.
+     */
+    public <C, R> R execute(Long itemId, String command, BatchAction<C, R> action, C input) {
+        Command<C, R> pendingCommand = new Command<>(input);
+        if (IN_WORKER.get()) {
+            action.run(itemId, List.of(pendingCommand));
+            return await(pendingCommand);
+        }
+        enqueue(new Entry(Set.of(itemId), command, action, pendingCommand, null));
+        return await(pendingCommand);
+    }
+
+    /**
+     * Runs the action alone once it is next in the mailboxes of all the given items,
+     * so no other command of those items runs at the same time.
+     */
+    public <R> R executeAll(Collection<Long> itemIds, String command, Supplier<R> action) {
+        if (IN_WORKER.get() || itemIds.isEmpty()) {
+            return action.get();
+        }
+        Command<Void, R> pendingCommand = new Command<>(null);
+        enqueue(new Entry(new LinkedHashSet<>(itemIds), command, null, pendingCommand, action));
+        return await(pendingCommand);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private void enqueue(Entry entry) {
+        synchronized (mailboxes) {
+            for (Long itemId : entry.itemIds) {
+                Deque<Entry> mailbox = mailboxes.get(itemId);
+                if (mailbox != null && mailbox.size() >= queueCapacity) {
+                    log.warn("Booking queue of item {} is full, {} rejected", itemId, entry.name);
+                    throw new ServiceUnavailableException(
+                            String.format("Too many pending booking commands for item %s, try again later", itemId));
+                }
+            }
+            for (Long itemId : entry.itemIds) {
+                mailboxes.computeIfAbsent(itemId, id -> new ArrayDeque<>()).addLast(entry);
+            }
+            pending.incrementAndGet();
+            entry.itemIds.forEach(this::dispatch);
+        }
+    }
+
+    /**
+     * Hands the next commands of the item to a worker, unless they are already running or the next one
+     * still waits for another of its items.
+     */
+    private void dispatch(Long itemId) {
+        Deque<Entry> mailbox = mailboxes.get(itemId);
+        if (mailbox == null) {
+            return;
+        }
+        Entry next = mailbox.peekFirst();
+        if (next.running || !isNextInAll(next)) {
+            return;
+        }
+        List<Entry> batch = new ArrayList<>();
+        for (Entry entry : mailbox) {
+            if (batch.size() == batchSize || !entry.isBatchedWith(next)) {
+                break;
+            }
+            batch.add(entry);
+        }
+        batch.forEach(entry -> entry.running = true);
+        workers.execute(() -> run(itemId, batch));
+    }
+
+    private boolean isNextInAll(Entry entry) {
+        for (Long itemId : entry.itemIds) {
+            if (mailboxes.get(itemId).peekFirst() != entry) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void run(Long itemId, List<Entry> batch) {
+        long started = System.nanoTime();
+        for (Entry entry : batch) {
+            meterRegistry.timer(WAIT_METRIC, "command", entry.name)
+                    .record(started - entry.submitted, TimeUnit.NANOSECONDS);
+        }
+        batchSizes.record(batch.size());
+        Entry first = batch.get(0);
+        IN_WORKER.set(true);
+        try {
+            if (first.action == null) {
+                first.command.complete(first.exclusiveAction.get());
+            } else {
+                List<Command> commands = new ArrayList<>(batch.size());
+                batch.forEach(entry -> commands.add(entry.command));
+                first.action.run(itemId, commands);
+            }
+        } catch (RuntimeException | Error e) {
+            batch.forEach(entry -> entry.command.fail(e));
+        } finally {
+            IN_WORKER.set(false);
+            batch.forEach(entry -> entry.command.fail(
+                    new IllegalStateException("Booking command " + entry.name + " was not completed")));
+            complete(batch);
+        }
+    }
+
+    private void complete(List<Entry> batch) {
+        synchronized (mailboxes) {
+            Set<Long> itemIds = new LinkedHashSet<>();
+            for (Entry entry : batch) {
+                for (Long itemId : entry.itemIds) {
+                    Deque<Entry> mailbox = mailboxes.get(itemId);
+                    mailbox.remove(entry);
+                    if (mailbox.isEmpty()) {
+                        mailboxes.remove(itemId);
+                    }
+                    itemIds.add(itemId);
+                }
+            }
+            pending.addAndGet(-batch.size());
+            itemIds.forEach(this::dispatch);
+        }
+    }
+
+    private static <R> R await(Command<?, R> command) {
+        try {
+            return command.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a batch of commands of one item in arrival order and completes every command with its result
+     * or failure. Commands it leaves incomplete fail.
+     */
+    @FunctionalInterface
+    public interface BatchAction<C, R> {
+        void run(Long itemId, List<Command<C, R>> commands);
+    }
+
+    public static class Command<C, R> {
+        private final C input;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+
+        private Command(C input) {
+            this.input = input;
+        }
+
+        public C getInput() {
+            return input;
+        }
+
+        public boolean isDone() {
+            return result.isDone();
+        }
+
+        public void complete(R value) {
+            result.complete(value);
+        }
+
+        public void fail(Throwable failure) {
+            result.completeExceptionally(failure);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static class Entry {
+        private final Set<Long> itemIds;
+        private final String name;
+        private final BatchAction action;
+        private final Command command;
+        private final Supplier<?> exclusiveAction;
+        private final long submitted = System.nanoTime();
+        private boolean running;
+
+        private Entry(Set<Long> itemIds, String name, BatchAction action, Command command,
+                      Supplier<?> exclusiveAction) {
+            this.itemIds = itemIds;
+            this.name = name;
+            this.action = action;
+            this.command = command;
+            this.exclusiveAction = exclusiveAction;
+        }
+
+        /**
+         * Whether the entry can run in one batch with the given first entry of a mailbox.
+         */
+        private boolean isBatchedWith(Entry first) {
+            if (this == first) {
+                return true;
+            }
+            return first.action != null && action != null && itemIds.size() == 1 && name.equals(first.name);
+        }
+    }
+}
@@ -1,20 +1,31 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecision;
+import ru.practicum.shareit.booking.dto.BookingDecisionResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.dto.BookingSlice;
 import ru.practicum.shareit.booking.state.State;
 
 import java.util.List;
+import java.util.Set;
 
 
 public interface BookingService {
 
     BookingDto create(BookingRequest bookingRequest, long bookerId);
 
-    BookingDto approve(Long bookingId, long userId, boolean approved);
+    List<BookingDto> createAll(List<BookingRequest> bookingRequests, long bookerId);
+
+    BookingDto approve(Long bookingId, long userId, boolean approved, Set<Long> expectedVersions);
+
+    List<BookingDecisionResult> decideAll(List<BookingDecision> decisions, long userId);
 
     BookingDto getById(long bookingId, long userId);
 
     List<BookingDto> getAllForUserByState(long userId, State state, boolean isBooker, Pageable page);
+
+    BookingSlice getAllForUserByState(long userId, State state, boolean isBooker, BookingCursor after, int size);
 }
@@ -1,23 +1,49 @@
 package ru.practicum.shareit.booking;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingAccessView;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecision;
+import ru.practicum.shareit.booking.dto.BookingDecisionResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.dto.BookingSlice;
 import ru.practicum.shareit.booking.state.State;
 import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.ForbiddenException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemAvailabilityService;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.version.OptimisticRetry;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static java.time.LocalDateTime.now;
 import static ru.practicum.shareit.booking.BookingMapper.*;
@@ -28,14 +54,108 @@ import static ru.practicum.shareit.booking.status.Status.*;
 @Slf4j
 @Transactional(readOnly = true)
 public class BookingServiceImpl implements BookingService {
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
     private final BookingRepository bookingRepository;
     private final UserService userService;
     private final ItemRepository itemRepository;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final ItemBookingSummaryService summaryService;
+    private final ItemViewCache itemViewCache;
+    private final ItemAvailabilityService availabilityService;
+    private final OptimisticRetry optimisticRetry;
+    private final BookingSequencer sequencer;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingPartitionMaintenance partitionMaintenance;
+
+    @Value("${shareit.booking.max-duration:365d}")
+    private Duration maxDuration;
 
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BookingDto create(BookingRequest bookingRequest, long bookerId) {
+        partitionMaintenance.ensurePartitionFor(bookingRequest.getStart());
+        return sequencer.execute(bookingRequest.getItemId(), "create", this::createBatch,
+                new CreateCommand(bookingRequest, bookerId));
+    }
+
+    /**
+     * Creates the pending bookings of one item. Several of them are created in one transaction: the item
+     * and the bookers are loaded once, every request is checked in memory against the approved bookings
+     * of the item, and the valid ones are inserted in one JDBC batch. Invalid requests fail on their own;
+     * when the transaction fails, the remaining requests are created one by one.
+     */
+    private void createBatch(Long itemId, List<BookingSequencer.Command<CreateCommand, BookingDto>> commands) {
+        if (commands.size() == 1) {
+            BookingSequencer.Command<CreateCommand, BookingDto> command = commands.get(0);
+            try {
+                command.complete(transactionTemplate.execute(status -> doCreate(
+                        command.getInput().getBookingRequest(), command.getInput().getBookerId())));
+            } catch (RuntimeException e) {
+                command.fail(e);
+            }
+            return;
+        }
+        Map<BookingSequencer.Command<CreateCommand, BookingDto>, Booking> created;
+        try {
+            created = transactionTemplate.execute(status -> doCreateBatch(itemId, commands));
+        } catch (RuntimeException e) {
+            log.warn("Creating {} bookings of item {} at once failed, creating them one by one",
+                    commands.size(), itemId, e);
+            commands.stream()
+                    .filter(command -> !command.isDone())
+                    .forEach(command -> createBatch(itemId, List.of(command)));
+            return;
+        }
+        created.forEach((command, booking) -> command.complete(bookingToDto(booking)));
+    }
+
+    private Map<BookingSequencer.Command<CreateCommand, BookingDto>, Booking> doCreateBatch(
+            Long itemId, List<BookingSequencer.Command<CreateCommand, BookingDto>> commands) {
+        Item item = itemRepository.findById(itemId).orElse(null);
+        Map<Long, User> bookers = userService.findAllById(commands.stream()
+                        .map(command -> command.getInput().getBookerId())
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<BookingSequencer.Command<CreateCommand, BookingDto>, Booking> bookings = new LinkedHashMap<>();
+        for (BookingSequencer.Command<CreateCommand, BookingDto> command : commands) {
+            try {
+                bookings.put(command, toNewBooking(command.getInput(), item, bookers));
+            } catch (RuntimeException e) {
+                command.fail(e);
+            }
+        }
+        if (!bookings.isEmpty()) {
+            bookingRepository.saveAll(bookings.values());
+            log.info("{} bookings of item {} successfully created at once", bookings.size(), itemId);
+            itemViewCache.evict(itemId);
+            availabilityService.evict(itemId);
+        }
+        return bookings;
+    }
+
+    private Booking toNewBooking(CreateCommand command, Item item, Map<Long, User> bookers) {
+        BookingRequest bookingRequest = command.getBookingRequest();
+        User booker = bookers.get(command.getBookerId());
+        if (booker == null) {
+            throw new NotFoundException(
+                    String.format("User with id %s not found when trying to get it", command.getBookerId()));
+        }
+        if (item == null || item.getOwner().getId().equals(command.getBookerId())) {
+            throw new NotFoundException(
+                    String.format("Item with id %s not found when trying to book it by user %s",
+                            bookingRequest.getItemId(), command.getBookerId()));
+        }
+        if (!item.getAvailable()) {
+            throw new BadRequestException("Item is not available");
+        }
+        checkDuration(bookingRequest);
+        checkIsFree(item.getId(), bookingRequest.getStart(), bookingRequest.getEnd(), null);
+        return requestToBooking(bookingRequest, booker, item);
+    }
+
+    private BookingDto doCreate(BookingRequest bookingRequest, long bookerId) {
         User booker = userService.findById(bookerId);
         Item item = itemRepository.findByIdIsAndOwnerIdNot(bookingRequest.getItemId(), bookerId)
                 .orElseThrow(() -> new NotFoundException(
@@ -44,18 +164,177 @@ public class BookingServiceImpl implements BookingService {
         if (!item.getAvailable()) {
             throw new BadRequestException("Item is not available");
         }
+        checkDuration(bookingRequest);
+        checkIsFree(item.getId(), bookingRequest.getStart(), bookingRequest.getEnd(), null);
         Booking booking = bookingRepository.save(requestToBooking(bookingRequest, booker, item));
         log.info("Booking successfully created: {}", booking);
+        itemViewCache.evict(item.getId());
+        availabilityService.evict(item.getId());
         return bookingToDto(booking);
     }
 
     @Override
-    @Transactional
-    public BookingDto approve(Long bookingId, long userId, boolean approved) {
-        Booking booking = bookingRepository.findByIdAndBookerIdNot(bookingId, userId)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BookingDto> createAll(List<BookingRequest> bookingRequests, long bookerId) {
+        bookingRequests.forEach(bookingRequest -> partitionMaintenance.ensurePartitionFor(bookingRequest.getStart()));
+        Set<Long> itemIds = bookingRequests.stream()
+                .map(BookingRequest::getItemId)
+                .collect(Collectors.toSet());
+        return sequencer.executeAll(itemIds, "createAll",
+                () -> transactionTemplate.execute(status -> doCreateAll(bookingRequests, bookerId)));
+    }
+
+    private List<BookingDto> doCreateAll(List<BookingRequest> bookingRequests, long bookerId) {
+        User booker = userService.findById(bookerId);
+        Set<Long> itemIds = bookingRequests.stream()
+                .map(BookingRequest::getItemId)
+                .collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<Booking> bookings = new ArrayList<>(bookingRequests.size());
+        for (BookingRequest bookingRequest : bookingRequests) {
+            Item item = items.get(bookingRequest.getItemId());
+            if (item == null || item.getOwner().getId().equals(bookerId)) {
+                throw new NotFoundException(
+                        String.format("Item with id %s not found when trying to book it by user %s",
+                                bookingRequest.getItemId(), bookerId));
+            }
+            if (!item.getAvailable()) {
+                throw new BadRequestException("Item is not available");
+            }
+            checkDuration(bookingRequest);
+            checkIsFree(item.getId(), bookingRequest.getStart(), bookingRequest.getEnd(), null);
+            bookings.add(requestToBooking(bookingRequest, booker, item));
+        }
+        List<Booking> saved = bookingRepository.saveAll(bookings);
+        log.info("{} bookings successfully created by user {}", saved.size(), bookerId);
+        itemIds.forEach(itemViewCache::evict);
+        itemIds.forEach(availabilityService::evict);
+        return convertToDtoList(saved);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BookingDto approve(Long bookingId, long userId, boolean approved, Set<Long> expectedVersions) {
+        Long itemId = bookingRepository.findItemIdById(bookingId)
                 .orElseThrow(() -> new NotFoundException(
                         String.format("Booking with id %s not found when trying to approve it by user %s",
                                 bookingId, userId)));
+        return sequencer.execute(itemId, "approve", this::decideBatch,
+                new DecideCommand(bookingId, userId, approved, expectedVersions));
+    }
+
+    /**
+     * Decides the pending approvals and rejections of one item. Several of them are decided in one
+     * transaction: the bookings are loaded with one query, and every approval is checked in memory against
+     * the approved bookings of the item and the approvals before it. Invalid decisions fail on their own;
+     * when the transaction fails, the remaining decisions are made one by one.
+     */
+    private void decideBatch(Long itemId, List<BookingSequencer.Command<DecideCommand, BookingDto>> commands) {
+        if (commands.size() == 1) {
+            BookingSequencer.Command<DecideCommand, BookingDto> command = commands.get(0);
+            DecideCommand decision = command.getInput();
+            try {
+                command.complete(optimisticRetry.execute("Decision on booking " + decision.getBookingId(),
+                        () -> decide(decision.getBookingId(), decision.getUserId(), decision.isApproved(),
+                                decision.getExpectedVersions())));
+            } catch (RuntimeException e) {
+                command.fail(e);
+            }
+            return;
+        }
+        Map<BookingSequencer.Command<DecideCommand, BookingDto>, Booking> decided;
+        try {
+            decided = transactionTemplate.execute(status -> doDecideBatch(itemId, commands));
+        } catch (RuntimeException e) {
+            log.warn("Deciding {} bookings of item {} at once failed, deciding them one by one",
+                    commands.size(), itemId, e);
+            commands.stream()
+                    .filter(command -> !command.isDone())
+                    .forEach(command -> decideBatch(itemId, List.of(command)));
+            return;
+        }
+        decided.forEach((command, booking) -> command.complete(bookingToDto(booking)));
+    }
+
+    private Map<BookingSequencer.Command<DecideCommand, BookingDto>, Booking> doDecideBatch(
+            Long itemId, List<BookingSequencer.Command<DecideCommand, BookingDto>> commands) {
+        Map<Long, Booking> bookings = bookingRepository.findAllByIdIn(commands.stream()
+                        .map(command -> command.getInput().getBookingId())
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        Map<BookingSequencer.Command<DecideCommand, BookingDto>, Booking> decided = new LinkedHashMap<>();
+        List<Booking> approvedInBatch = new ArrayList<>();
+        for (BookingSequencer.Command<DecideCommand, BookingDto> command : commands) {
+            DecideCommand decision = command.getInput();
+            try {
+                Booking booking = bookings.get(decision.getBookingId());
+                checkDecidable(booking, decision.getBookingId(), decision.getUserId(), decision.getExpectedVersions());
+                if (decision.isApproved()) {
+                    if (overlapsAny(booking, approvedInBatch)) {
+                        throw overlapException(itemId, booking.getStart(), booking.getEnd());
+                    }
+                    checkIsFree(itemId, booking.getStart(), booking.getEnd(), booking.getId());
+                    approvedInBatch.add(booking);
+                }
+                booking.setStatus(decision.isApproved() ? APPROVED : REJECTED);
+                decided.put(command, booking);
+            } catch (RuntimeException e) {
+                command.fail(e);
+            }
+        }
+        if (!decided.isEmpty()) {
+            bookingRepository.flush();
+            log.info("{} bookings of item {} decided at once", decided.size(), itemId);
+            itemViewCache.evict(itemId);
+            availabilityService.evict(itemId);
+            if (!approvedInBatch.isEmpty()) {
+                summaryService.refresh(itemId);
+            }
+            for (Booking booking : decided.values()) {
+                if (booking.getStatus() == APPROVED) {
+                    availabilityIndex.onApproved(booking);
+                } else {
+                    availabilityIndex.onRejected(booking);
+                }
+            }
+        }
+        return decided;
+    }
+
+    private BookingDto decide(Long bookingId, long userId, boolean approved, Set<Long> expectedVersions) {
+        Booking booking = bookingRepository.findByIdAndBookerIdNot(bookingId, userId).orElse(null);
+        checkDecidable(booking, bookingId, userId, expectedVersions);
+        if (approved) {
+            checkIsFree(booking.getItem().getId(), booking.getStart(), booking.getEnd(), booking.getId());
+        }
+        booking.setStatus(approved ? APPROVED : REJECTED);
+        try {
+            booking = bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                availabilityIndex.evict(booking.getItem().getId());
+                throw overlapException(booking.getItem().getId(), booking.getStart(), booking.getEnd());
+            }
+            throw e;
+        }
+        itemViewCache.evict(booking.getItem().getId());
+        availabilityService.evict(booking.getItem().getId());
+        if (approved) {
+            summaryService.refresh(booking.getItem().getId());
+            availabilityIndex.onApproved(booking);
+        } else {
+            availabilityIndex.onRejected(booking);
+        }
+        return bookingToDto(booking);
+    }
+
+    private void checkDecidable(Booking booking, Long bookingId, long userId, Set<Long> expectedVersions) {
+        if (booking == null || booking.getBooker().getId().equals(userId)) {
+            throw new NotFoundException(
+                    String.format("Booking with id %s not found when trying to approve it by user %s",
+                            bookingId, userId));
+        }
         if (!booking.getStatus().equals(WAITING)) {
             throw new BadRequestException("Booking is already " + booking.getStatus().getStatus());
         }
@@ -63,8 +342,59 @@ public class BookingServiceImpl implements BookingService {
             throw new ForbiddenException(
                     String.format("User with id: %s has no rights to approve/reject booking: %s", userId, bookingId));
         }
-        booking.setStatus(approved ? APPROVED : REJECTED);
-        return bookingToDto(bookingRepository.save(booking));
+        OptimisticRetry.checkVersion(expectedVersions, booking.getVersion(), "Booking " + bookingId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BookingDecisionResult> decideAll(List<BookingDecision> decisions, long userId) {
+        userService.existsById(userId);
+        Set<Long> bookingIds = decisions.stream()
+                .map(BookingDecision::getBookingId)
+                .collect(Collectors.toSet());
+        return sequencer.executeAll(bookingRepository.findItemIdsByIdIn(bookingIds), "decideAll",
+                () -> transactionTemplate.execute(status -> doDecideAll(decisions, bookingIds, userId)));
+    }
+
+    private List<BookingDecisionResult> doDecideAll(List<BookingDecision> decisions, Set<Long> bookingIds,
+                                                    long userId) {
+        Map<Long, Booking> bookings = bookingRepository.findAllDecidable(bookingIds, userId, WAITING).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        Map<Long, BookingDecisionResult.Outcome> outcomes = getUndecidableOutcomes(bookingIds, bookings, userId);
+        Set<Long> overlappingApproved = findOverlappingApproved(decisions, bookings);
+        Map<Long, List<Booking>> approvedByItem = new HashMap<>();
+        for (BookingDecision decision : decisions) {
+            if (outcomes.containsKey(decision.getBookingId())) {
+                continue;
+            }
+            Booking booking = bookings.get(decision.getBookingId());
+            BookingDecisionResult.Outcome outcome;
+            if (!decision.getApproved()) {
+                outcome = BookingDecisionResult.Outcome.REJECTED;
+            } else if (overlappingApproved.contains(booking.getId()) || overlapsInBatch(booking, approvedByItem)) {
+                outcome = BookingDecisionResult.Outcome.OVERLAP;
+            } else {
+                approvedByItem.computeIfAbsent(booking.getItem().getId(), id -> new ArrayList<>()).add(booking);
+                outcome = BookingDecisionResult.Outcome.APPROVED;
+            }
+            outcomes.put(decision.getBookingId(), outcome);
+        }
+        Set<Long> approvedIds = getIdsWithOutcome(outcomes, BookingDecisionResult.Outcome.APPROVED);
+        Set<Long> decidedIds = new HashSet<>(approvedIds);
+        decidedIds.addAll(getIdsWithOutcome(outcomes, BookingDecisionResult.Outcome.REJECTED));
+        if (!decidedIds.isEmpty()) {
+            applyDecisions(approvedIds, decidedIds, bookings);
+        }
+        log.info("User {} decided {} of {} bookings", userId, decidedIds.size(), decisions.size());
+        return decisions.stream()
+                .map(decision -> {
+                    BookingDecisionResult.Outcome outcome = outcomes.get(decision.getBookingId());
+                    return decidedIds.contains(decision.getBookingId())
+                            ? new BookingDecisionResult(decision.getBookingId(), outcome,
+                            bookingToDto(bookings.get(decision.getBookingId())))
+                            : BookingDecisionResult.failed(decision.getBookingId(), outcome);
+                })
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -79,29 +409,199 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<BookingDto> getAllForUserByState(long userId, State state, boolean isBooker, Pageable page) {
-        userService.existsById(userId);
+        LocalDateTime registered = userService.findById(userId).getRegistrationDate();
         BooleanExpression byUserId = isBooker ? QBooking.booking.booker.id.eq(userId) :
                 QBooking.booking.item.owner.id.eq(userId);
-        BooleanExpression byState = getConditionByState(state);
+        BooleanExpression byState = getConditionByState(state, registered);
         Iterable<Booking> foundItems = bookingRepository.findAll(byUserId.and(byState), page);
         return convertToDtoList(foundItems);
     }
 
-    private BooleanExpression getConditionByState(State state) {
+    @Override
+    public BookingSlice getAllForUserByState(long userId, State state, boolean isBooker,
+                                             BookingCursor after, int size) {
+        LocalDateTime registered = userService.findById(userId).getRegistrationDate();
+        BooleanExpression byUserId = isBooker ? QBooking.booking.booker.id.eq(userId) :
+                QBooking.booking.item.owner.id.eq(userId);
+        BooleanExpression byState = getConditionByState(state, registered);
+        List<Booking> foundItems = bookingRepository.findAllOrderedByStartDesc(
+                byUserId.and(byState).and(getConditionAfter(after)), size);
+        String next = null;
+        if (foundItems.size() == size) {
+            Booking last = foundItems.get(foundItems.size() - 1);
+            next = new BookingCursor(last.getStart(), last.getId()).encode();
+        }
+        return new BookingSlice(convertToDtoList(foundItems), next);
+    }
+
+    /**
+     * Outcomes of the bookings the owner cannot decide, told apart with one more query only when there are any.
+     */
+    private Map<Long, BookingDecisionResult.Outcome> getUndecidableOutcomes(Set<Long> bookingIds,
+                                                                           Map<Long, Booking> decidable,
+                                                                           long userId) {
+        Map<Long, BookingDecisionResult.Outcome> outcomes = new HashMap<>();
+        Set<Long> undecidableIds = new HashSet<>(bookingIds);
+        undecidableIds.removeAll(decidable.keySet());
+        if (undecidableIds.isEmpty()) {
+            return outcomes;
+        }
+        Map<Long, BookingAccessView> access = bookingRepository.findAccessByIds(undecidableIds).stream()
+                .collect(Collectors.toMap(BookingAccessView::getId, Function.identity()));
+        for (Long id : undecidableIds) {
+            BookingAccessView booking = access.get(id);
+            if (booking == null || booking.getBookerId() == userId) {
+                outcomes.put(id, BookingDecisionResult.Outcome.NOT_FOUND);
+            } else if (booking.getOwnerId() != userId) {
+                outcomes.put(id, BookingDecisionResult.Outcome.FORBIDDEN);
+            } else {
+                outcomes.put(id, BookingDecisionResult.Outcome.NOT_WAITING);
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Bookings to be approved that overlap already approved ones, found with one range query.
+     */
+    private Set<Long> findOverlappingApproved(List<BookingDecision> decisions, Map<Long, Booking> decidable) {
+        Set<Long> toApprove = decisions.stream()
+                .filter(BookingDecision::getApproved)
+                .map(BookingDecision::getBookingId)
+                .filter(decidable::containsKey)
+                .collect(Collectors.toSet());
+        if (toApprove.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(bookingRepository.findIdsOverlappingApproved(toArrayLiteral(toApprove)));
+    }
+
+    private boolean overlapsInBatch(Booking booking, Map<Long, List<Booking>> approvedByItem) {
+        return overlapsAny(booking, approvedByItem.getOrDefault(booking.getItem().getId(), List.of()));
+    }
+
+    private static boolean overlapsAny(Booking booking, List<Booking> others) {
+        return others.stream()
+                .anyMatch(other -> other.getStart().isBefore(booking.getEnd())
+                        && booking.getStart().isBefore(other.getEnd()));
+    }
+
+    private Set<Long> getIdsWithOutcome(Map<Long, BookingDecisionResult.Outcome> outcomes,
+                                        BookingDecisionResult.Outcome outcome) {
+        return outcomes.entrySet().stream()
+                .filter(entry -> entry.getValue() == outcome)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    private void applyDecisions(Set<Long> approvedIds, Set<Long> decidedIds, Map<Long, Booking> bookings) {
+        Set<Long> itemIds = decidedIds.stream()
+                .map(id -> bookings.get(id).getItem().getId())
+                .collect(Collectors.toSet());
+        int updated;
+        try {
+            updated = bookingRepository.decideWaiting(toArrayLiteral(approvedIds), toArrayLiteral(decidedIds));
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                itemIds.forEach(availabilityIndex::evict);
+                throw new ConflictException("Some of the approved bookings overlap with already approved ones");
+            }
+            throw e;
+        }
+        if (updated != decidedIds.size()) {
+            throw new ConflictException("Some of the bookings were decided concurrently, please retry");
+        }
+        Set<Long> approvedItemIds = new HashSet<>();
+        for (Long id : decidedIds) {
+            Booking booking = bookings.get(id);
+            if (approvedIds.contains(id)) {
+                booking.setStatus(APPROVED);
+                approvedItemIds.add(booking.getItem().getId());
+                availabilityIndex.onApproved(booking);
+            } else {
+                booking.setStatus(REJECTED);
+                availabilityIndex.onRejected(booking);
+            }
+        }
+        itemIds.forEach(itemViewCache::evict);
+        itemIds.forEach(availabilityService::evict);
+        if (!approvedItemIds.isEmpty()) {
+            summaryService.refresh(approvedItemIds);
+        }
+    }
+
+    private static String toArrayLiteral(Collection<Long> ids) {
+        return ids.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private void checkDuration(BookingRequest bookingRequest) {
+        if (Duration.between(bookingRequest.getStart(), bookingRequest.getEnd()).compareTo(maxDuration) > 0) {
+            throw new BadRequestException(String.format("Booking cannot last longer than %s days",
+                    maxDuration.toDays()));
+        }
+    }
+
+    private void checkIsFree(long itemId, LocalDateTime start, LocalDateTime end, Long bookingId) {
+        if (!availabilityIndex.isFree(itemId, start, end, bookingId)) {
+            throw overlapException(itemId, start, end);
+        }
+    }
+
+    private ConflictException overlapException(long itemId, LocalDateTime start, LocalDateTime end) {
+        return new ConflictException(
+                String.format("Item with id %s is already booked for period from %s to %s",
+                        itemId, start, end));
+    }
+
+    private boolean isOverlapViolation(DataIntegrityViolationException e) {
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof SQLException
+                    && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    private BooleanExpression getConditionAfter(BookingCursor after) {
+        if (after == null) {
+            return null;
+        }
+        return QBooking.booking.start.lt(after.getStart())
+                .or(QBooking.booking.start.eq(after.getStart())
+                        .and(QBooking.booking.id.lt(after.getId())));
+    }
+
+    /**
+     * Bookings of a user never start before the user registered: they start after they were made, and an owner's
+     * items are booked after the owner registered. That lower bound on start date lets the planner skip older
+     * bookings partitions; running bookings are bounded closer still by the longest allowed booking.
+     */
+    private BooleanExpression getConditionByState(State state, LocalDateTime registered) {
         BooleanExpression byState;
+        LocalDateTime now = now();
+        LocalDateTime earliestStart = registered;
         switch (state) {
             case ALL:
                 byState = null;
                 break;
             case PAST:
-                byState = QBooking.booking.end.before(now());
+                byState = QBooking.booking.end.before(now);
                 break;
             case CURRENT:
-                byState = QBooking.booking.start.before(now())
-                        .and(QBooking.booking.end.after(now()));
+                LocalDateTime earliestRunningStart = now.minus(maxDuration);
+                if (earliestRunningStart.isAfter(earliestStart)) {
+                    earliestStart = earliestRunningStart;
+                }
+                byState = QBooking.booking.start.before(now)
+                        .and(QBooking.booking.end.after(now));
                 break;
             case FUTURE:
-                byState = QBooking.booking.start.after(now());
+                byState = QBooking.booking.start.after(now);
                 break;
             case WAITING:
                 byState = QBooking.booking.status.eq(WAITING);
@@ -112,6 +612,26 @@ public class BookingServiceImpl implements BookingService {
             default:
                 throw new ForbiddenException("No such state" + state);
         }
-        return byState;
+        return QBooking.booking.start.goe(earliestStart).and(byState);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class CreateCommand {
+        private final BookingRequest bookingRequest;
+
+        private final long bookerId;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class DecideCommand {
+        private final Long bookingId;
+
+        private final long userId;
+
+        private final boolean approved;
+
+        private final Set<Long> expectedVersions;
     }
 }
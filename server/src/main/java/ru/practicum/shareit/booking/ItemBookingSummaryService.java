@@ -0,0 +1,79 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingsByItem;
+import ru.practicum.shareit.booking.dto.BookingsByItemView;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.time.LocalDateTime.now;
+
+/**
+ * Maintains the item_booking_summary read model with the last and next approved booking
+ * and the approved rent counter of every item.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemBookingSummaryService {
+    private final BookingRepository bookingRepository;
+
+    public Map<Long, BookingsByItem> getByItems(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        LocalDateTime now = now();
+        Map<Long, BookingsByItem> summaries = toMap(bookingRepository.findSummariesByItems(itemIds));
+        List<Long> dueItemIds = summaries.values().stream()
+                .filter(summary -> isDue(summary, now))
+                .map(BookingsByItem::getItemId)
+                .collect(Collectors.toList());
+        if (!dueItemIds.isEmpty()) {
+            summaries.putAll(toMap(bookingRepository.computeSummariesByItems(dueItemIds, now)));
+        }
+        return summaries;
+    }
+
+    public void refresh(long itemId) {
+        refresh(List.of(itemId));
+    }
+
+    public void refresh(Collection<Long> itemIds) {
+        bookingRepository.refreshSummaries(itemIds, now());
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking-summary.roll-forward-delay:60000}")
+    public void rollForward() {
+        LocalDateTime now = now();
+        List<Long> dueItemIds = bookingRepository.findItemIdsWithSummaryDue(now);
+        if (!dueItemIds.isEmpty()) {
+            bookingRepository.refreshSummaries(dueItemIds, now);
+            log.info("Booking summaries of {} items rolled forward", dueItemIds.size());
+        }
+    }
+
+    /**
+     * A summary whose next booking has started is stale until {@link #rollForward()} stores it again;
+     * reads compute it from bookings meanwhile instead of writing on a GET.
+     */
+    private static boolean isDue(BookingsByItem summary, LocalDateTime now) {
+        return summary.getNextBooking() != null && !summary.getNextBooking().getStart().isAfter(now);
+    }
+
+    private static Map<Long, BookingsByItem> toMap(List<BookingsByItemView> summaries) {
+        return summaries.stream()
+                .map(BookingMapper::viewToBookingsByItem)
+                .collect(Collectors.toMap(
+                        BookingsByItem::getItemId,
+                        Function.identity()));
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.dto;
+
+public interface BookingAccessView {
+    Long getId();
+
+    String getStatus();
+
+    Long getOwnerId();
+
+    Long getBookerId();
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+@Data
+public class BookingCountsDto {
+    private final long all;
+
+    private final long current;
+
+    private final long past;
+
+    private final long future;
+
+    private final long waiting;
+
+    private final long rejected;
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+public interface BookingCountsView {
+    Long getAll();
+
+    Long getCurrent();
+
+    Long getPast();
+
+    Long getFuture();
+
+    Long getWaiting();
+
+    Long getRejected();
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class BookingDecision {
+    private final Long bookingId;
+
+    private final Boolean approved;
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class BookingDecisionResult {
+    private final Long bookingId;
+
+    private final Outcome outcome;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final BookingDto booking;
+
+    public static BookingDecisionResult failed(Long bookingId, Outcome outcome) {
+        return new BookingDecisionResult(bookingId, outcome, null);
+    }
+
+    public enum Outcome {
+        APPROVED,
+        REJECTED,
+        NOT_FOUND,
+        FORBIDDEN,
+        NOT_WAITING,
+        OVERLAP
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
@@ -27,4 +28,7 @@ public class BookingDto {
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private Status status;
+
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.time.LocalDateTime;
+
+public interface BookingsByItemView {
+    Long getItemId();
+
+    Long getLastId();
+
+    LocalDateTime getLastStart();
+
+    LocalDateTime getLastEnd();
+
+    Long getLastBookerId();
+
+    Long getNextId();
+
+    LocalDateTime getNextStart();
+
+    LocalDateTime getNextEnd();
+
+    Long getNextBookerId();
+
+    Long getRentCounter();
+}
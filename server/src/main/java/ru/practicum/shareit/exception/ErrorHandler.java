@@ -80,6 +80,22 @@ public class ErrorHandler {
         return Map.of(HttpStatus.CONFLICT.getReasonPhrase(), errors);
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, List<String>> handleServiceUnavailableException(final ServiceUnavailableException e) {
+        List<String> errors = List.of(e.getMessage());
+        log.warn(errors.toString());
+        return Map.of(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(), errors);
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public Map<String, List<String>> handlePreconditionFailedException(final PreconditionFailedException e) {
+        List<String> errors = List.of(e.getMessage());
+        log.warn(errors.toString());
+        return Map.of(HttpStatus.PRECONDITION_FAILED.getReasonPhrase(), errors);
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, List<String>> handleBadRequestException(final BadRequestException e) {
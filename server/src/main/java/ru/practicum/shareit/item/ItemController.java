@@ -2,15 +2,28 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.admission.DatabaseConnections;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemJsonView;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.service.ItemAvailabilityService;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.version.ETags;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.springframework.data.domain.Sort.Direction.DESC;
@@ -24,7 +37,13 @@ import static org.springframework.data.domain.Sort.Direction.DESC;
 @RequiredArgsConstructor
 @Validated
 public class ItemController {
+    private static final Duration DEFAULT_AVAILABILITY_WINDOW = Duration.ofDays(30);
+
     private final ItemService itemService;
+    private final ItemAvailabilityService availabilityService;
+
+    @Value("${shareit.item-details.json-aggregation}")
+    private boolean jsonAggregation;
 
 
     @PostMapping
@@ -35,21 +54,49 @@ public class ItemController {
     }
 
     @PatchMapping("/{itemId}")
-    public ItemDto update(@PathVariable Long itemId,
-                          @RequestHeader("X-Sharer-User-Id") long userId,
-                          @RequestBody ItemDto itemDto) {
+    public ResponseEntity<ItemDto> update(@PathVariable Long itemId,
+                                          @RequestHeader("X-Sharer-User-Id") long userId,
+                                          @RequestBody ItemDto itemDto,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                          String ifMatch) {
         log.info("Received request from user with Id {} to update item with id: {}, new data: {}",
                 userId, itemId, itemDto);
-        return itemService.update(itemId, userId, itemDto);
+        ItemDto updated = itemService.update(itemId, userId, itemDto, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(updated, updated.getVersion());
     }
 
     @GetMapping("/{itemId}")
-    public ItemDto getById(@PathVariable long itemId,
-                           @RequestHeader("X-Sharer-User-Id") long userId) {
+    public ResponseEntity<?> getById(@PathVariable long itemId,
+                                     @RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("Received request from user {} to get item with id: {}", userId, itemId);
-        return itemService.getById(itemId, userId);
+        if (jsonAggregation) {
+            ItemJsonView item = itemService.getJsonById(itemId, userId);
+            return ETags.versioned(item.getVersion())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(item.getItem());
+        }
+        ItemDto item = itemService.getById(itemId, userId);
+        return ETags.ok(item, item.getVersion());
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable long itemId,
+                                               @RequestHeader("X-Sharer-User-Id") long userId,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime from,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime to,
+                                               @RequestParam(defaultValue = "false") boolean includeWaiting) {
+        LocalDateTime windowFrom = from != null ? from : LocalDateTime.now();
+        LocalDateTime windowTo = to != null ? to : windowFrom.plus(DEFAULT_AVAILABILITY_WINDOW);
+        log.info("Received request from user {} to get availability of item {} from {} to {}",
+                userId, itemId, windowFrom, windowTo);
+        return availabilityService.getAvailability(itemId, windowFrom, windowTo, includeWaiting);
     }
 
+    @DatabaseConnections(2)
     @GetMapping
     public List<ItemDto> getAllForUser(@RequestHeader("X-Sharer-User-Id") long userId,
                                        @RequestParam(defaultValue = "0") int from,
@@ -65,12 +112,19 @@ public class ItemController {
                                               @RequestHeader("X-Sharer-User-Id") long userId,
                                               @RequestParam(defaultValue = "0") int from,
                                               @RequestParam(defaultValue = "10") int size) {
-        Sort sort = Sort.by(DESC, "created");
-        Pageable page = PageRequest.of(from / size, size, sort);
+        Pageable page = PageRequest.of(from / size, size);
         log.info("Received request from user {} to search items containing: {}", userId, text);
         return itemService.searchByNameAndDescr(text, userId, page);
     }
 
+    @GetMapping("/search/suggest")
+    public List<String> suggestNames(@RequestParam String prefix,
+                                     @RequestHeader("X-Sharer-User-Id") long userId,
+                                     @RequestParam(defaultValue = "10") int size) {
+        log.info("Received request from user {} to suggest item names starting with: {}", userId, prefix);
+        return itemService.suggestNames(prefix, Math.min(size, ItemNameSuggester.MAX_SUGGESTIONS));
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto create(@RequestBody CommentDto comment,
                              @PathVariable long itemId,
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-item eviction counters that keep a cache from storing a value loaded before the item was last evicted.
+ * A reader takes a stamp before loading and stores the value only while the stamp is still current;
+ * an eviction advances the counter before it invalidates. Items share a fixed number of counters, so
+ * an eviction of another item on the same counter only costs a skipped put.
+ */
+public class EvictionStamps {
+    private static final int COUNTERS = 1024;
+
+    private final AtomicLongArray generations = new AtomicLongArray(COUNTERS);
+
+    public long stamp(long itemId) {
+        return generations.get(counterOf(itemId));
+    }
+
+    public void advance(long itemId) {
+        generations.incrementAndGet(counterOf(itemId));
+    }
+
+    public boolean isCurrent(long itemId, long stamp) {
+        return generations.get(counterOf(itemId)) == stamp;
+    }
+
+    private static int counterOf(long itemId) {
+        return Math.floorMod(Long.hashCode(itemId), COUNTERS);
+    }
+}
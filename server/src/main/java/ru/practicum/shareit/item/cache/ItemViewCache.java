@@ -0,0 +1,101 @@
+package ru.practicum.shareit.item.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.Duration;
+
+/**
+ * Bounded cache of assembled item details. The owner view (with booking info) and the public view
+ * of an item are separate entries; both are dropped together when the item changes.
+ * A view is stored only if the item was not evicted since the stamp taken before the view was loaded.
+ */
+@Component
+public class ItemViewCache {
+    private final Cache<Key, CachedView> views;
+    private final EvictionStamps stamps = new EvictionStamps();
+
+    public ItemViewCache(@Value("${shareit.item-cache.maximum-size}") long maximumSize,
+                         @Value("${shareit.item-cache.ttl}") Duration ttl,
+                         MeterRegistry meterRegistry) {
+        this.views = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, views, "itemViews");
+    }
+
+    /**
+     * Returns the view cached for the given viewer: the owner view when the user owns the item,
+     * otherwise the public view. Either entry can be present without the other.
+     */
+    public CachedView getFor(long itemId, long userId) {
+        CachedView ownerView = views.getIfPresent(new Key(itemId, true));
+        if (ownerView != null && ownerView.getOwnerId() == userId) {
+            return ownerView;
+        }
+        CachedView publicView = views.getIfPresent(new Key(itemId, false));
+        if (publicView != null && publicView.getOwnerId() != userId) {
+            return publicView;
+        }
+        return null;
+    }
+
+    /**
+     * Stamp to take before loading a view that is then passed to {@link #put}.
+     */
+    public long stamp(long itemId) {
+        return stamps.stamp(itemId);
+    }
+
+    public void put(long itemId, long stamp, boolean ownerView, long ownerId, ItemDto view) {
+        CachedView loaded = new CachedView(ownerId, view);
+        views.asMap().compute(new Key(itemId, ownerView),
+                (key, cached) -> stamps.isCurrent(itemId, stamp) ? loaded : cached);
+    }
+
+    public void evict(long itemId) {
+        invalidate(itemId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(itemId);
+                }
+            });
+        }
+    }
+
+    private void invalidate(long itemId) {
+        stamps.advance(itemId);
+        views.invalidate(new Key(itemId, true));
+        views.invalidate(new Key(itemId, false));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class CachedView {
+        private final long ownerId;
+
+        private final ItemDto view;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        private final long itemId;
+
+        private final boolean ownerView;
+    }
+}
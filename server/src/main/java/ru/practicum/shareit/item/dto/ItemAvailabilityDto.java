@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class ItemAvailabilityDto {
+    private final long itemId;
+
+    private final LocalDateTime from;
+
+    private final LocalDateTime to;
+
+    private final List<TimeSlot> free;
+}
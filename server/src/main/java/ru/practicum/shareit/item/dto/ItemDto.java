@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
@@ -37,4 +38,7 @@ public class ItemDto {
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private Long requestId;
+
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.dto;
+
+public interface ItemJsonView {
+    Long getUserId();
+
+    String getItem();
+
+    Long getVersion();
+}
@@ -1,8 +1,6 @@
 package ru.practicum.shareit.item.dto;
 
 import lombok.extern.slf4j.Slf4j;
-import ru.practicum.shareit.booking.Booking;
-import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingsByItem;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
@@ -15,7 +13,7 @@ import java.util.List;
 @Slf4j
 public class ItemMapper {
     public static Item dtoToItem(ItemDto dto, User user, ItemRequest request) {
-        return new Item(dto.getId(), dto.getName(), dto.getDescription(), dto.getAvailable(), user, request);
+        return new Item(dto.getId(), dto.getName(), dto.getDescription(), dto.getAvailable(), user, request, null);
     }
 
     public static ItemDto itemToDto(Item item, BookingsByItem bookingsByItem, List<Comment> comments) {
@@ -27,12 +25,11 @@ public class ItemMapper {
                 .comments(CommentMapper.commentToDto(
                         (comments != null) ? comments : Collections.emptyList()))
                 .requestId(item.getRequest() != null ? item.getRequest().getId() : null)
+                .version(item.getVersion())
                 .build();
         if (bookingsByItem != null) {
-            Booking lastBooking = bookingsByItem.getLastBooking();
-            Booking nextBooking = bookingsByItem.getNextBooking();
-            itemDto.setLastBooking((lastBooking != null) ? BookingMapper.bookingToShort(lastBooking) : null);
-            itemDto.setNextBooking((nextBooking != null) ? BookingMapper.bookingToShort(nextBooking) : null);
+            itemDto.setLastBooking(bookingsByItem.getLastBooking());
+            itemDto.setNextBooking(bookingsByItem.getNextBooking());
             itemDto.setRentCounter(bookingsByItem.getRentCounter());
         }
         return itemDto;
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class TimeSlot {
+    private final LocalDateTime start;
+
+    private final LocalDateTime end;
+}
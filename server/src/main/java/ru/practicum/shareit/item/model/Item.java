@@ -38,6 +38,8 @@ public class Item {
     @ManyToOne(fetch = FetchType.LAZY)
     @ToString.Exclude
     private ItemRequest request;
+    @Version
+    private Long version;
 
 
     @Override
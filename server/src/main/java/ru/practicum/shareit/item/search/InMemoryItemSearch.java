@@ -0,0 +1,171 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Substring search over item name and description served from a trigram inverted index.
+ * The index is rebuilt from the database at startup and updated by this node's item writes,
+ * so it is meant for nodes that own item writes or tolerate lag from other nodes.
+ * Queries shorter than a trigram have no postings to narrow them down and go to the database search instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+public class InMemoryItemSearch implements ItemSearch {
+    private static final int GRAM_LENGTH = 3;
+    private static final Comparator<IndexedItem> NEWEST_FIRST =
+            Comparator.comparing(IndexedItem::getCreated, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(IndexedItem::getId, Comparator.reverseOrder());
+
+    private final ItemRepository itemRepository;
+
+    private final Map<Long, IndexedItem> items = new HashMap<>();
+    private final Map<Long, LongPostings> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void rebuild() {
+        List<Item> allItems = itemRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            items.clear();
+            postings.clear();
+            allItems.forEach(this::doIndex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Search index built for {} items, {} trigrams", allItems.size(), postings.size());
+    }
+
+    @Override
+    public List<Item> search(String text, Pageable page) {
+        String query = normalize(text);
+        if (query.length() < GRAM_LENGTH) {
+            return itemRepository.searchAvailable(text, page);
+        }
+        List<Long> pageIds;
+        lock.readLock().lock();
+        try {
+            pageIds = findMatches(query).stream()
+                    .sorted(NEWEST_FIRST)
+                    .skip(page.getOffset())
+                    .limit(page.getPageSize())
+                    .map(IndexedItem::getId)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (pageIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Item> found = itemRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return pageIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void index(Item item) {
+        lock.writeLock().lock();
+        try {
+            doIndex(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doIndex(Item item) {
+        IndexedItem indexed = new IndexedItem(item.getId(),
+                normalize(item.getName() + "\n" + Objects.toString(item.getDescription(), "")),
+                Boolean.TRUE.equals(item.getAvailable()),
+                item.getCreated(),
+                Objects.requireNonNullElse(item.getVersion(), 0L));
+        IndexedItem previous = items.get(indexed.getId());
+        if (previous != null && previous.getVersion() >= indexed.getVersion()) {
+            log.debug("Skipped indexing item {} version {}, version {} is already indexed",
+                    indexed.getId(), indexed.getVersion(), previous.getVersion());
+            return;
+        }
+        items.put(indexed.getId(), indexed);
+        if (previous != null) {
+            for (long gram : grams(previous.getText())) {
+                LongPostings itemIds = postings.get(gram);
+                itemIds.remove(previous.getId());
+                if (itemIds.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        for (long gram : grams(indexed.getText())) {
+            postings.computeIfAbsent(gram, key -> new LongPostings()).add(indexed.getId());
+        }
+    }
+
+    private List<IndexedItem> findMatches(String query) {
+        List<LongPostings> queryPostings = new ArrayList<>();
+        for (long gram : grams(query)) {
+            LongPostings itemIds = postings.get(gram);
+            if (itemIds == null) {
+                return Collections.emptyList();
+            }
+            queryPostings.add(itemIds);
+        }
+        queryPostings.sort(Comparator.comparingInt(LongPostings::size));
+        long[] candidates = queryPostings.get(0).toArray();
+        for (int i = 1; i < queryPostings.size() && candidates.length > 0; i++) {
+            candidates = queryPostings.get(i).intersect(candidates);
+        }
+        return Arrays.stream(candidates)
+                .mapToObj(items::get)
+                .filter(item -> item.matches(query))
+                .collect(Collectors.toList());
+    }
+
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class IndexedItem {
+        private final Long id;
+
+        private final String text;
+
+        private final boolean available;
+
+        private final Instant created;
+
+        private final long version;
+
+        boolean matches(String query) {
+            return available && text.contains(query);
+        }
+    }
+}
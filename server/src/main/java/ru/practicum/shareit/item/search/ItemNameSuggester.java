@@ -0,0 +1,177 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Prefix trie over the words of available item names used for search-as-you-type suggestions.
+ * Every word of a name is a key, so a prefix of any word suggests the whole name.
+ * Suggestions are the alphabetically first names under the prefix. Every node keeps those first names
+ * of its subtree, so a lookup does not walk the subtree; nodes left without names are pruned.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemNameSuggester {
+    public static final int MAX_SUGGESTIONS = 20;
+
+    private final ItemRepository itemRepository;
+
+    private final Node root = new Node();
+    private final Map<Long, String> indexedNames = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void rebuild() {
+        List<Item> allItems = itemRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            allItems.forEach(this::doIndex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Suggestion trie built for {} available items", indexedNames.size());
+    }
+
+    public List<String> suggest(String prefix, int size) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || size <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            List<String> names = new ArrayList<>(Math.min(size, node.top.size()));
+            for (String name : node.top) {
+                if (names.size() == size) {
+                    break;
+                }
+                names.add(name);
+            }
+            return names;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(Item item) {
+        lock.writeLock().lock();
+        try {
+            doIndex(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doIndex(Item item) {
+        String previous = indexedNames.remove(item.getId());
+        if (previous != null) {
+            forEachWord(previous, key -> release(root, key, 0, previous));
+        }
+        if (Boolean.TRUE.equals(item.getAvailable())) {
+            indexedNames.put(item.getId(), item.getName());
+            forEachWord(item.getName(), key -> retain(key, item.getName()));
+        }
+    }
+
+    private void retain(String key, String name) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            node.offer(name);
+        }
+        node.retain(name);
+    }
+
+    /**
+     * Releases the name at the end of the key and drops the nodes on its path that hold nothing anymore.
+     * First names of the nodes on the path are recomputed bottom-up, since the name may have been one of them.
+     *
+     * @return whether the node is empty after the release
+     */
+    private boolean release(Node node, String key, int depth, String name) {
+        if (depth == key.length()) {
+            node.release(name);
+        } else {
+            Node child = node.children.get(key.charAt(depth));
+            if (child != null && release(child, key, depth + 1, name)) {
+                node.children.remove(key.charAt(depth));
+            }
+        }
+        if (node.top.contains(name)) {
+            node.recomputeTop();
+        }
+        return node.isEmpty();
+    }
+
+    private void forEachWord(String name, Consumer<String> action) {
+        String normalized = normalize(name);
+        for (int start = 0; start < normalized.length(); start++) {
+            boolean wordStart = start == 0 || Character.isWhitespace(normalized.charAt(start - 1));
+            if (!wordStart || Character.isWhitespace(normalized.charAt(start))) {
+                continue;
+            }
+            action.accept(normalized.substring(start));
+        }
+    }
+
+    private static String normalize(String text) {
+        return text.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Node {
+        private final NavigableMap<Character, Node> children = new TreeMap<>();
+        private final NavigableMap<String, Integer> names = new TreeMap<>();
+        /**
+         * First names of the subtree in alphabetical order, since trie order is the order
+         * of the matched word, not of the name.
+         */
+        private final NavigableSet<String> top = new TreeSet<>();
+
+        void retain(String name) {
+            names.merge(name, 1, Integer::sum);
+        }
+
+        void release(String name) {
+            names.computeIfPresent(name, (key, count) -> count > 1 ? count - 1 : null);
+        }
+
+        void offer(String name) {
+            if (top.add(name) && top.size() > MAX_SUGGESTIONS) {
+                top.pollLast();
+            }
+        }
+
+        void recomputeTop() {
+            top.clear();
+            for (String name : names.keySet()) {
+                if (top.size() == MAX_SUGGESTIONS) {
+                    break;
+                }
+                top.add(name);
+            }
+            for (Node child : children.values()) {
+                child.top.forEach(this::offer);
+            }
+        }
+
+        boolean isEmpty() {
+            return names.isEmpty() && children.isEmpty();
+        }
+    }
+}
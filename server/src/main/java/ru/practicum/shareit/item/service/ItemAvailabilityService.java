@@ -0,0 +1,162 @@
+package ru.practicum.shareit.item.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.status.Status;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.EvictionStamps;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.TimeSlot;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.time.LocalDateTime.now;
+import static ru.practicum.shareit.booking.status.Status.APPROVED;
+import static ru.practicum.shareit.booking.status.Status.WAITING;
+
+/**
+ * Free time slots of an item.
+ * Approved and waiting bookings of the item from the start of today up to a fixed horizon are loaded
+ * with one range query and cached per item; windows inside that range are answered by a sweep over
+ * the cached intervals, windows outside it query the database directly.
+ * Loaded intervals are cached only if the item was not evicted while they were loaded.
+ */
+@Slf4j
+@Service
+public class ItemAvailabilityService {
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final Duration horizon;
+    private final Cache<Long, BookedIntervals> bookedIntervals;
+    private final EvictionStamps stamps = new EvictionStamps();
+
+    public ItemAvailabilityService(BookingRepository bookingRepository,
+                                   ItemRepository itemRepository,
+                                   @Value("${shareit.availability-cache.maximum-size:10000}") long maximumSize,
+                                   @Value("${shareit.availability-cache.ttl:5m}") Duration ttl,
+                                   @Value("${shareit.availability-cache.horizon:90d}") Duration horizon,
+                                   MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.itemRepository = itemRepository;
+        this.horizon = horizon;
+        this.bookedIntervals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, bookedIntervals, "itemAvailability");
+    }
+
+    public ItemAvailabilityDto getAvailability(long itemId, LocalDateTime from, LocalDateTime to,
+                                               boolean includeWaiting) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("Availability window start must be before its end");
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException(
+                    String.format("Item with id %s not found when trying to get its availability", itemId));
+        }
+        BookedIntervals booked = bookedIntervals.getIfPresent(itemId);
+        if (booked == null || booked.from.isAfter(from) || booked.to.isBefore(to)) {
+            LocalDateTime cacheFrom = now().toLocalDate().atStartOfDay();
+            LocalDateTime cacheTo = cacheFrom.plus(horizon);
+            if (!cacheFrom.isAfter(from) && !cacheTo.isBefore(to)) {
+                long stamp = stamps.stamp(itemId);
+                BookedIntervals loaded = load(itemId, cacheFrom, cacheTo);
+                bookedIntervals.asMap().compute(itemId,
+                        (key, cached) -> stamps.isCurrent(itemId, stamp) ? loaded : cached);
+                booked = loaded;
+            } else {
+                booked = load(itemId, from, to);
+            }
+        }
+        List<TimeSlot> free = sweep(booked.intervals, from, to, includeWaiting);
+        log.info("Item {} has {} free slots between {} and {}", itemId, free.size(), from, to);
+        return new ItemAvailabilityDto(itemId, from, to, free);
+    }
+
+    public void evict(long itemId) {
+        invalidate(itemId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(itemId);
+                }
+            });
+        }
+    }
+
+    private void invalidate(long itemId) {
+        stamps.advance(itemId);
+        bookedIntervals.invalidate(itemId);
+    }
+
+    private BookedIntervals load(long itemId, LocalDateTime from, LocalDateTime to) {
+        List<Interval> intervals = bookingRepository.findAllByItemIdInWindow(itemId, from, to).stream()
+                .filter(booking -> booking.getStatus() == APPROVED || booking.getStatus() == WAITING)
+                .map(booking -> new Interval(booking.getStart(), booking.getEnd(), booking.getStatus()))
+                .collect(Collectors.toList());
+        return new BookedIntervals(from, to, intervals);
+    }
+
+    /**
+     * Walks the intervals in start order and emits the gaps between them that fall inside [from, to).
+     */
+    private static List<TimeSlot> sweep(List<Interval> intervals, LocalDateTime from, LocalDateTime to,
+                                        boolean includeWaiting) {
+        List<TimeSlot> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (Interval interval : intervals) {
+            if (interval.status == WAITING && !includeWaiting) {
+                continue;
+            }
+            if (!interval.start.isBefore(to)) {
+                break;
+            }
+            if (interval.start.isAfter(cursor)) {
+                free.add(new TimeSlot(cursor, interval.start));
+            }
+            if (interval.end.isAfter(cursor)) {
+                cursor = interval.end;
+            }
+        }
+        if (cursor.isBefore(to)) {
+            free.add(new TimeSlot(cursor, to));
+        }
+        return free;
+    }
+
+    @RequiredArgsConstructor
+    private static class BookedIntervals {
+        private final LocalDateTime from;
+
+        private final LocalDateTime to;
+
+        private final List<Interval> intervals;
+    }
+
+    @RequiredArgsConstructor
+    private static class Interval {
+        private final LocalDateTime start;
+
+        private final LocalDateTime end;
+
+        private final Status status;
+    }
+}
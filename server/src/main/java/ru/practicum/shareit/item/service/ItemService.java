@@ -3,19 +3,25 @@ package ru.practicum.shareit.item.service;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemJsonView;
 
 import java.util.List;
+import java.util.Set;
 
 public interface ItemService {
     ItemDto create(ItemDto item, long userId);
 
-    ItemDto update(Long itemId, long userId, ItemDto itemDto);
+    ItemDto update(Long itemId, long userId, ItemDto itemDto, Set<Long> expectedVersions);
 
     ItemDto getById(long itemId, long userId);
 
+    ItemJsonView getJsonById(long itemId, long userId);
+
     List<ItemDto> getAllForUser(long userId, Pageable page);
 
     List<ItemDto> searchByNameAndDescr(String text, long userId, Pageable page);
 
+    List<String> suggestNames(String prefix, int size);
+
     CommentDto create(CommentDto comment, long itemId, long userId);
 }
@@ -4,34 +4,41 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.ItemBookingSummaryService;
 import ru.practicum.shareit.booking.dto.BookingsByItem;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.ForbiddenException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemJsonView;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearch;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.lookup.ParallelLookup;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.version.OptimisticRetry;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static java.time.LocalDateTime.now;
-import static ru.practicum.shareit.booking.status.Status.APPROVED;
 import static ru.practicum.shareit.item.dto.CommentMapper.commentToDto;
 import static ru.practicum.shareit.item.dto.CommentMapper.dtoToComment;
 import static ru.practicum.shareit.item.dto.ItemMapper.dtoToItem;
 import static ru.practicum.shareit.item.dto.ItemMapper.itemToDto;
+import static ru.practicum.shareit.lookup.ParallelLookup.await;
 
 @Slf4j
 @Service
@@ -43,6 +50,12 @@ public class ItemServiceImpl implements ItemService {
     private final CommentRepository commentRepository;
     private final ItemRequestRepository requestRepository;
     private final UserService userService;
+    private final ItemBookingSummaryService summaryService;
+    private final ItemSearch itemSearch;
+    private final ItemNameSuggester nameSuggester;
+    private final ItemViewCache itemViewCache;
+    private final ParallelLookup parallelLookup;
+    private final OptimisticRetry optimisticRetry;
 
     @Override
     public ItemDto create(ItemDto item, long userId) {
@@ -51,55 +64,87 @@ public class ItemServiceImpl implements ItemService {
         Item itemCreated = itemRepository.save(
                 dtoToItem(item, creatingUser, request));
         log.info("Item created: {}", itemCreated);
+        itemSearch.index(itemCreated);
+        nameSuggester.index(itemCreated);
         return itemToDto(itemCreated, null, null);
     }
 
     @Override
-    public ItemDto update(Long itemId, long userId, ItemDto itemDto) {
-        Item targetItem = getItem(itemId, "update it");
-        User owner = targetItem.getOwner();
-        if (!owner.getId().equals(userId)) {
-            throw new ForbiddenException(
-                    String.format("У пользователя %s нет прав редактирровать товар %s", userId, itemId));
-        }
-        Optional.ofNullable(itemDto.getName())
-                .ifPresent(targetItem::setName);
-        Optional.ofNullable(itemDto.getDescription())
-                .ifPresent(targetItem::setDescription);
-        Optional.ofNullable(itemDto.getAvailable())
-                .ifPresent(targetItem::setAvailable);
-        targetItem = itemRepository.save(targetItem);
-        log.info("Item with ID: {} updated - new data: {}", itemId, targetItem);
+    public ItemDto update(Long itemId, long userId, ItemDto itemDto, Set<Long> expectedVersions) {
+        Item updatedItem = optimisticRetry.execute("Update of item " + itemId, () -> {
+            Item targetItem = getItem(itemId, "update it");
+            User owner = targetItem.getOwner();
+            if (!owner.getId().equals(userId)) {
+                throw new ForbiddenException(
+                        String.format("У пользователя %s нет прав редактирровать товар %s", userId, itemId));
+            }
+            OptimisticRetry.checkVersion(expectedVersions, targetItem.getVersion(), "Item " + itemId);
+            Optional.ofNullable(itemDto.getName())
+                    .ifPresent(targetItem::setName);
+            Optional.ofNullable(itemDto.getDescription())
+                    .ifPresent(targetItem::setDescription);
+            Optional.ofNullable(itemDto.getAvailable())
+                    .ifPresent(targetItem::setAvailable);
+            return itemRepository.saveAndFlush(targetItem);
+        });
+        itemViewCache.evict(itemId);
+        itemSearch.index(updatedItem);
+        nameSuggester.index(updatedItem);
+        log.info("Item with ID: {} updated - new data: {}", itemId, updatedItem);
         BookingsByItem dateByItem = getBookingsByItem(itemId);
         List<Comment> comments = commentRepository.findAllByItemIdIn(
                 Collections.singletonList(itemId));
-        return itemToDto(targetItem, dateByItem, comments);
+        return itemToDto(updatedItem, dateByItem, comments);
     }
 
     @Override
     public ItemDto getById(long itemId, long userId) {
         userService.existsById(userId);
+        ItemViewCache.CachedView cached = itemViewCache.getFor(itemId, userId);
+        if (cached != null && (cached.getOwnerId() != userId || !isNextBookingStarted(cached.getView()))) {
+            return cached.getView();
+        }
+        long stamp = itemViewCache.stamp(itemId);
         Item targetItem = getItem(itemId, "get it");
         log.info("Item found: {}", targetItem);
-        BookingsByItem dateByItem = targetItem.getOwner().getId()
-                .equals(userId) ?
+        long ownerId = targetItem.getOwner().getId();
+        boolean isOwner = ownerId == userId;
+        BookingsByItem dateByItem = isOwner ?
                 getBookingsByItem(itemId) :
                 null;
         List<Comment> comments = commentRepository.findAllByItemIdIn(
                 Collections.singletonList(itemId));
-        return itemToDto(targetItem, dateByItem, comments);
+        ItemDto itemDto = itemToDto(targetItem, dateByItem, comments);
+        itemViewCache.put(itemId, stamp, isOwner, ownerId, itemDto);
+        return itemDto;
+    }
+
+    @Override
+    public ItemJsonView getJsonById(long itemId, long userId) {
+        ItemJsonView found = itemRepository.findJsonById(itemId, userId, now())
+                .orElseThrow(() -> new NotFoundException(
+                        String.format("User with id %s not found when trying to get it", userId)));
+        if (found.getItem() == null) {
+            throw new NotFoundException(
+                    String.format("Item with id %s not found when trying to get it", itemId));
+        }
+        return found;
     }
 
     @Override
     public List<ItemDto> getAllForUser(long userId, Pageable page) {
-        User user = userService.findById(userId);
-        Map<Long, Item> itemMap = itemListToMap(
-                itemRepository.findAllByOwnerId(
-                        user.getId(), page));
+        CompletableFuture<User> user = parallelLookup.submit("owner",
+                () -> userService.findById(userId));
+        CompletableFuture<List<Item>> items = parallelLookup.submit("ownerItems",
+                () -> itemRepository.findAllByOwnerId(userId, page));
+        await(user);
+        Map<Long, Item> itemMap = itemListToMap(await(items));
         log.info("Found {} items of user with id: {}", itemMap.size(), userId);
-        Map<Long, BookingsByItem> bookingMap = getBookingsMap(itemMap);
-        Map<Long, List<Comment>> commentMap = getCommentMap(itemMap);
-        return getItemDtos(itemMap, bookingMap, commentMap);
+        CompletableFuture<Map<Long, BookingsByItem>> bookingMap = parallelLookup.submit("itemBookings",
+                () -> getBookingsMap(itemMap));
+        CompletableFuture<Map<Long, List<Comment>>> commentMap = parallelLookup.submit("itemComments",
+                () -> getCommentMap(itemMap));
+        return getItemDtos(itemMap, await(bookingMap), await(commentMap));
     }
 
     @Override
@@ -109,14 +154,17 @@ public class ItemServiceImpl implements ItemService {
             log.info("No text for search entered");
             return Collections.emptyList();
         }
-        Map<Long, Item> foundItems = itemListToMap(itemRepository
-                .findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableTrue(
-                        text, text, page));
+        Map<Long, Item> foundItems = itemListToMap(itemSearch.search(text, page));
         log.info("Found {} items containing {}", foundItems.size(), text);
         Map<Long, List<Comment>> commentMap = getCommentMap(foundItems);
         return getItemDtos(foundItems, Collections.emptyMap(), commentMap);
     }
 
+    @Override
+    public List<String> suggestNames(String prefix, int size) {
+        return nameSuggester.suggest(prefix, size);
+    }
+
     @Override
     public CommentDto create(CommentDto comment, long itemId, long userId) {
         User author = userService.findById(userId);
@@ -125,10 +173,15 @@ public class ItemServiceImpl implements ItemService {
         Comment commentCreated = commentRepository.save(
                 dtoToComment(comment, item, author));
         log.info("Comment created: {}", commentCreated);
+        itemViewCache.evict(itemId);
         return commentToDto(commentCreated);
     }
 
 
+    private boolean isNextBookingStarted(ItemDto itemDto) {
+        return itemDto.getNextBooking() != null && !itemDto.getNextBooking().getStart().isAfter(now());
+    }
+
     private Item getItem(long id, String operation) {
         return itemRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException(
@@ -143,43 +196,17 @@ public class ItemServiceImpl implements ItemService {
     }
 
     private BookingsByItem getBookingsByItem(long itemId) {
-        return new BookingsByItem(itemId,
-                bookingRepository.findLastBookings(
-                                List.of(itemId),
-                                now())
-                        .stream()
-                        .findAny()
-                        .orElse(null),
-                bookingRepository.findNextBookings(List.of(itemId),
-                                now())
-                        .stream()
-                        .findAny()
-                        .orElse(null));
+        return summaryService.getByItems(List.of(itemId)).get(itemId);
     }
 
     private Map<Long, Item> itemListToMap(List<Item> itemList) {
         return itemList.stream()
                 .collect(Collectors.toMap(
-                        Item::getId, Function.identity()));
+                        Item::getId, Function.identity(), (first, second) -> first, LinkedHashMap::new));
     }
 
     private Map<Long, BookingsByItem> getBookingsMap(Map<Long, Item> itemMap) {
-        Map<Long, Booking> lastBookings = bookingRepository.findLastBookings(
-                        new ArrayList<>(itemMap.keySet()),
-                        now()).stream()
-                .collect(Collectors.toMap(b -> b.getItem().getId(),
-                        Function.identity()));
-        Map<Long, Booking> nextBookings = bookingRepository.findNextBookings(
-                        new ArrayList<>(itemMap.keySet()),
-                        now()).stream()
-                .collect(Collectors.toMap(b -> b.getItem().getId(),
-                        Function.identity()));
-        return itemMap.keySet().stream()
-                .map(id -> new BookingsByItem(id, lastBookings.get(id), nextBookings.get(id)))
-                .collect(Collectors.toMap(
-                        BookingsByItem::getItemId,
-                        Function.identity()));
-
+        return summaryService.getByItems(itemMap.keySet());
     }
 
     private Map<Long, List<Comment>> getCommentMap(Map<Long, Item> itemMap) {
@@ -203,8 +230,7 @@ public class ItemServiceImpl implements ItemService {
     }
 
     private void isItemRentedByUser(long itemId, long userId) {
-        if (!bookingRepository.existsByItemIdAndBookerIdAndEndBeforeAndStatus(
-                itemId, userId, now(), APPROVED)) {
+        if (!bookingRepository.hasFinishedRental(itemId, userId, now())) {
             throw new BadRequestException(
                     String.format("User with id: %s did not rent item with id: %s to comment it", userId, itemId));
         }
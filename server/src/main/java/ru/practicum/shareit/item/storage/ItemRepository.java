@@ -2,8 +2,11 @@ package ru.practicum.shareit.item.storage;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.dto.ItemJsonView;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -11,8 +14,67 @@ import java.util.Set;
 public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findAllByOwnerId(Long ownerId, Pageable page);
 
-    List<Item> findAllByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCaseAndAvailableTrue(
-            String text, String sameText, Pageable page);
+    @Query(value = "SELECT i.* " +
+            "FROM items i " +
+            "WHERE i.available " +
+            "AND (i.search_vector @@ websearch_to_tsquery('simple', ?1) " +
+            "     OR i.search_text LIKE '%' || replace(replace(replace(lower(?1), " +
+            "                                    '\\', '\\\\'), '%', '\\%'), '_', '\\_') || '%' ESCAPE '\\') " +
+            "ORDER BY ts_rank(i.search_vector, websearch_to_tsquery('simple', ?1)) DESC, i.created DESC",
+            nativeQuery = true)
+    List<Item> searchAvailable(String text, Pageable page);
+
+    /**
+     * Builds the item view as JSON in the shape {@link ru.practicum.shareit.item.dto.ItemDto} is serialized to:
+     * the keys come in the order of its fields, and the ones it leaves out when null are left out as well.
+     */
+    @Query(value = "SELECT u.id AS \"userId\", " +
+            "       (SELECT CAST(json_object_agg(f.name, f.value ORDER BY f.key_position) AS text) " +
+            "        FROM items i " +
+            "        CROSS JOIN LATERAL (VALUES " +
+            "            (1, 'id', to_json(i.id)), " +
+            "            (2, 'name', to_json(i.name)), " +
+            "            (3, 'description', to_json(i.description)), " +
+            "            (4, 'available', to_json(i.available)), " +
+            "            (5, 'lastBooking', CASE WHEN i.owner_id = u.id THEN COALESCE( " +
+            "                (SELECT json_build_object('id', b.id, 'start', b.start_date, " +
+            "                            'end', b.end_date, 'bookerId', b.booker_id, 'status', b.status) " +
+            "                 FROM bookings b " +
+            "                 WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date <= ?3 " +
+            "                 ORDER BY b.start_date DESC " +
+            "                 LIMIT 1), " +
+            "                (SELECT json_build_object('id', s.last_booking_id, 'start', s.last_start, " +
+            "                            'end', s.last_end, 'bookerId', s.last_booker_id, 'status', 'APPROVED') " +
+            "                 FROM item_booking_summary s " +
+            "                 WHERE s.item_id = i.id AND s.last_start <= ?3)) END), " +
+            "            (6, 'nextBooking', CASE WHEN i.owner_id = u.id THEN " +
+            "                (SELECT json_build_object('id', b.id, 'start', b.start_date, " +
+            "                            'end', b.end_date, 'bookerId', b.booker_id, 'status', b.status) " +
+            "                 FROM bookings b " +
+            "                 WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date > ?3 " +
+            "                 ORDER BY b.start_date " +
+            "                 LIMIT 1) END), " +
+            "            (7, 'comments', COALESCE( " +
+            "                (SELECT json_agg(json_build_object('id', c.id, 'text', c.text, " +
+            "                            'authorName', a.name, 'created', c.created) ORDER BY c.id) " +
+            "                 FROM comments c " +
+            "                 JOIN users a ON a.id = c.author_id " +
+            "                 WHERE c.item_id = i.id), CAST('[]' AS json))), " +
+            "            (8, 'rentCounter', CASE WHEN i.owner_id = u.id THEN " +
+            "                to_json((SELECT COUNT(*) " +
+            "                         FROM bookings b " +
+            "                         WHERE b.item_id = i.id AND b.status = 'APPROVED') " +
+            "                        + COALESCE((SELECT SUM(r.rentals) " +
+            "                                    FROM booking_rentals r " +
+            "                                    WHERE r.item_id = i.id), 0)) END), " +
+            "            (9, 'requestId', to_json(i.request_id))) AS f(key_position, name, value) " +
+            "        WHERE i.id = ?1 " +
+            "          AND (f.value IS NOT NULL OR f.name NOT IN ('comments', 'rentCounter', 'requestId'))) " +
+            "           AS \"item\", " +
+            "       (SELECT i.version FROM items i WHERE i.id = ?1) AS \"version\" " +
+            "FROM users u " +
+            "WHERE u.id = ?2", nativeQuery = true)
+    Optional<ItemJsonView> findJsonById(long itemId, long userId, LocalDateTime now);
 
     Optional<Item> findByIdIsAndOwnerIdNot(Long itemId, long bookerId);
 
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.lookup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent repository lookups of one request concurrently.
+ * The pool is as large as the JDBC connection pool, so it never asks for more connections than exist,
+ * and a full queue makes the calling thread run the lookup itself.
+ */
+@Slf4j
+@Component
+public class ParallelLookup {
+    private static final String TIMER_NAME = "shareit.lookup";
+
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    public ParallelLookup(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                          @Value("${shareit.lookup.queue-capacity:100}") int queueCapacity,
+                          MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new LookupThreadFactory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public <T> CompletableFuture<T> submit(String stage, Supplier<T> lookup) {
+        Timer timer = meterRegistry.timer(TIMER_NAME, "stage", stage);
+        return CompletableFuture.supplyAsync(() -> timer.record(lookup), executor);
+    }
+
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class LookupThreadFactory implements ThreadFactory {
+        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+        private int counter;
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = delegate.newThread(runnable);
+            thread.setName("lookup-" + ++counter);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -4,12 +4,16 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.admission.DatabaseConnections;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.List;
 
+import static org.springframework.data.domain.Sort.Direction.DESC;
+
 /**
  * TODO Sprint add-item-requests.
  */
@@ -28,6 +32,7 @@ public class ItemRequestController {
         return requestService.create(userId, requestDto);
     }
 
+    @DatabaseConnections(2)
     @GetMapping
     public List<ItemRequestDto> getOwn(@RequestHeader("X-Sharer-User-Id") long userId) {
         log.info("Received request to get all own requests from user: {}",
@@ -36,11 +41,13 @@ public class ItemRequestController {
     }
 
 
+    @DatabaseConnections(2)
     @GetMapping("/all")
     public List<ItemRequestDto> getAll(@RequestHeader("X-Sharer-User-Id") long userId,
                                        @RequestParam(defaultValue = "0") int from,
                                        @RequestParam(defaultValue = "10") int size) {
-        Pageable page = PageRequest.of(from / size, size);
+        Sort sort = Sort.by(DESC, "created");
+        Pageable page = PageRequest.of(from / size, size, sort);
         log.info("Received request to get page with all requests from user: {} from {} element and size {}",
                 userId,
                 from,
@@ -7,7 +7,7 @@ import java.util.List;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
-    List<ItemRequest> findAllByAuthorId(Long id);
+    List<ItemRequest> findAllByAuthorIdOrderByCreatedDesc(Long id);
 
     List<ItemRequest> findAllByAuthorIdNot(Long id, Pageable pageRequest);
 }
@@ -4,21 +4,26 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.lookup.ParallelLookup;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static ru.practicum.shareit.lookup.ParallelLookup.await;
 import static ru.practicum.shareit.request.dto.ItemRequestMapper.dtoToItemRequest;
 import static ru.practicum.shareit.request.dto.ItemRequestMapper.itemRequestToDto;
 
@@ -30,6 +35,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRepository itemRepository;
     private final ItemRequestRepository requestRepository;
     private final UserService userService;
+    private final ParallelLookup parallelLookup;
 
     @Override
     @Transactional
@@ -42,11 +48,14 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<ItemRequestDto> getAllByUserId(long userId) {
-        User requestingUser = userService.findById(userId);
-        Map<Long, ItemRequest> itemRequests = requestsToMap(
-                requestRepository.findAllByAuthorId(
-                        requestingUser.getId()));
+        CompletableFuture<User> requestingUser = parallelLookup.submit("requestAuthor",
+                () -> userService.findById(userId));
+        CompletableFuture<List<ItemRequest>> ownRequests = parallelLookup.submit("ownRequests",
+                () -> requestRepository.findAllByAuthorIdOrderByCreatedDesc(userId));
+        await(requestingUser);
+        Map<Long, ItemRequest> itemRequests = requestsToMap(await(ownRequests));
         log.info("Found own requests: {}", itemRequests.values());
         Map<Long, List<Item>> responseItemsForRequests = getResponseItemsForRequests(itemRequests);
         return getItemRequestDtos(itemRequests, responseItemsForRequests);
@@ -54,12 +63,14 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<ItemRequestDto> getAll(long userId, Pageable pageRequest) {
-        User requestingUser = userService.findById(userId);
-        Map<Long, ItemRequest> itemRequests = requestsToMap(
-                requestRepository.findAllByAuthorIdNot(
-                        requestingUser.getId(),
-                        pageRequest));
+        CompletableFuture<User> requestingUser = parallelLookup.submit("requestReader",
+                () -> userService.findById(userId));
+        CompletableFuture<List<ItemRequest>> othersRequests = parallelLookup.submit("othersRequests",
+                () -> requestRepository.findAllByAuthorIdNot(userId, pageRequest));
+        await(requestingUser);
+        Map<Long, ItemRequest> itemRequests = requestsToMap(await(othersRequests));
         log.info("Found others requests: {}", itemRequests.values());
         Map<Long, List<Item>> responseItemsForRequests = getResponseItemsForRequests(itemRequests);
         return getItemRequestDtos(itemRequests, responseItemsForRequests);
@@ -80,7 +91,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private Map<Long, ItemRequest> requestsToMap(List<ItemRequest> requestList) {
         return requestList.stream()
                 .collect(Collectors.toMap(
-                        ItemRequest::getId, Function.identity()));
+                        ItemRequest::getId, Function.identity(), (first, second) -> first, LinkedHashMap::new));
     }
 
     private Map<Long, List<Item>> getResponseItemsForRequests(Map<Long, ItemRequest> itemRequests) {
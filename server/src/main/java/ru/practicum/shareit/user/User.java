@@ -37,6 +37,9 @@ public class User {
     @Email(message = "Email должен быть корректным адресом электронной почты")
     private String email;
 
+    @Version
+    private Long version;
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
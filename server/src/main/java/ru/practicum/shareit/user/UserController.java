@@ -2,8 +2,12 @@ package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import ru.practicum.shareit.version.ETags;
+
 import java.util.List;
 
 /**
@@ -23,9 +27,10 @@ public class UserController {
     }
 
     @GetMapping("/{userId}")
-    public UserDto getById(@PathVariable Long userId) {
+    public ResponseEntity<UserDto> getById(@PathVariable Long userId) {
         log.info("Received request to get user with id: {}", userId);
-        return userService.getById(userId);
+        UserDto user = userService.getById(userId);
+        return ETags.ok(user, user.getVersion());
     }
 
     @PostMapping
@@ -35,9 +40,12 @@ public class UserController {
     }
 
     @PatchMapping("/{userId}")
-    public UserDto update(@PathVariable Long userId, @RequestBody UserDto user) {
+    public ResponseEntity<UserDto> update(@PathVariable Long userId, @RequestBody UserDto user,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                          String ifMatch) {
         log.info("Received request to update user with ID: {} - new data: {}", userId, user);
-        return userService.update(userId, user);
+        UserDto updated = userService.update(userId, user, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(updated, updated.getVersion());
     }
 
     @DeleteMapping("/{userId}")
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Data;
 
@@ -11,4 +12,7 @@ public class UserDto {
     private String name;
 
     private String email;
+
+    @JsonIgnore
+    private Long version;
 }
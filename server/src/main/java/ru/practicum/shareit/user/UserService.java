@@ -1,6 +1,8 @@
 package ru.practicum.shareit.user;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface UserService {
     List<UserDto> getAll();
@@ -9,11 +11,13 @@ public interface UserService {
 
     UserDto create(UserDto user);
 
-    UserDto update(Long userId, UserDto user);
+    UserDto update(Long userId, UserDto user, Set<Long> expectedVersions);
 
     void deleteById(Long userId);
 
     User findById(long userId);
 
+    List<User> findAllById(Collection<Long> userIds);
+
     void existsById(long userId);
 }
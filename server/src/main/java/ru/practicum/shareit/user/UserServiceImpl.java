@@ -3,11 +3,15 @@ package ru.practicum.shareit.user;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.version.OptimisticRetry;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -16,6 +20,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository repository;
+    private final OptimisticRetry optimisticRetry;
 
     @Override
     public List<UserDto> getAll() {
@@ -41,13 +46,17 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Transactional
-    public UserDto update(Long userId, UserDto withNewData) {
-        User toBeUpdated = findById(userId);
-        Optional.ofNullable(withNewData.getName()).ifPresent(toBeUpdated::setName);
-        Optional.ofNullable(withNewData.getEmail()).ifPresent(toBeUpdated::setEmail);
-        log.info("User with ID {} updated - new data: {}", userId, toBeUpdated);
-        return UserMapper.userToDto(toBeUpdated);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public UserDto update(Long userId, UserDto withNewData, Set<Long> expectedVersions) {
+        return optimisticRetry.execute("Update of user " + userId, () -> {
+            User toBeUpdated = findById(userId);
+            OptimisticRetry.checkVersion(expectedVersions, toBeUpdated.getVersion(), "User " + userId);
+            Optional.ofNullable(withNewData.getName()).ifPresent(toBeUpdated::setName);
+            Optional.ofNullable(withNewData.getEmail()).ifPresent(toBeUpdated::setEmail);
+            toBeUpdated = repository.saveAndFlush(toBeUpdated);
+            log.info("User with ID {} updated - new data: {}", userId, toBeUpdated);
+            return UserMapper.userToDto(toBeUpdated);
+        });
     }
 
     @Override
@@ -65,6 +74,11 @@ public class UserServiceImpl implements UserService {
                         String.format("User with id %s not found when trying to get it", userId)));
     }
 
+    @Override
+    public List<User> findAllById(Collection<Long> userIds) {
+        return repository.findAllById(userIds);
+    }
+
     @Override
     public void existsById(long userId) {
         if (!repository.existsById(userId)) {
@@ -0,0 +1,27 @@
+package ru.practicum.shareit.version;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * GET responses of users carry their version ETag set by the controller. Single item and request views
+ * also include data the entity version does not cover (bookings and comments, answers), so they are
+ * tagged by a hash of the body when it is small enough; an item keeps its version in front of the hash.
+ * A matching If-None-Match is answered with 304 and no body.
+ */
+@Configuration
+public class ContentETagConfig {
+
+    @Bean
+    public FilterRegistrationBean<ContentETagFilter> contentETagFilter(
+            @Value("${shareit.content-etag.max-body-size:64KB}") DataSize maxBodySize) {
+        FilterRegistrationBean<ContentETagFilter> registration =
+                new FilterRegistrationBean<>(new ContentETagFilter(maxBodySize));
+        registration.addUrlPatterns("/items/*", "/requests/*");
+        registration.setName("contentETagFilter");
+        return registration;
+    }
+}
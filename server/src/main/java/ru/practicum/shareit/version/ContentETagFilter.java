@@ -0,0 +1,65 @@
+package ru.practicum.shareit.version;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Tags single item and request views by a hash of the body, since they include bookings, comments
+ * or answers that the entity version does not cover. When the controller has already set a version ETag,
+ * the version stays in front of the hash, so an item is tagged "version-hash" by both GET and PATCH
+ * and the tag of a GET is a valid If-Match for the next PATCH.
+ * Lists, searches and other methods are passed through without buffering, and bodies larger than
+ * the limit keep the controller's ETag, if any, instead of being hashed.
+ */
+public class ContentETagFilter extends OncePerRequestFilter {
+    private static final Pattern ITEM_VIEW = Pattern.compile("/items/\\d+");
+    private static final Pattern REQUEST_VIEW = Pattern.compile("/requests/\\d+");
+
+    private final long maxBodyBytes;
+
+    public ContentETagFilter(DataSize maxBodySize) {
+        this.maxBodyBytes = maxBodySize.toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if ("GET".equals(request.getMethod())) {
+            return !ITEM_VIEW.matcher(path).matches() && !REQUEST_VIEW.matcher(path).matches();
+        }
+        return !"PATCH".equals(request.getMethod()) || !ITEM_VIEW.matcher(path).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        int status = wrapper.getStatus();
+        if (status >= 200 && status < 300 && wrapper.getContentSize() <= maxBodyBytes) {
+            String eTag = contentTag(wrapper.getHeader(HttpHeaders.ETAG),
+                    DigestUtils.md5DigestAsHex(wrapper.getContentInputStream()));
+            response.setHeader(HttpHeaders.ETAG, eTag);
+            if ("GET".equals(request.getMethod()) && new ServletWebRequest(request, response).checkNotModified(eTag)) {
+                return;
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private static String contentTag(String versionTag, String hash) {
+        String version = ETags.versionOf(versionTag);
+        return "\"" + (version == null ? hash : version + ETags.CONTENT_SEPARATOR + hash) + "\"";
+    }
+}
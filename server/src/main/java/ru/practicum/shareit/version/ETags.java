@@ -0,0 +1,67 @@
+package ru.practicum.shareit.version;
+
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Entity versions travel over HTTP as strong ETags such as "3". Views that also include other data
+ * are tagged "3-hash" by {@link ContentETagFilter}; only the version part counts for If-Match.
+ */
+public class ETags {
+    static final String CONTENT_SEPARATOR = "-";
+
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    /**
+     * Versions listed in an If-Match header such as "3" or "3", "4"; empty when the header is absent or "*",
+     * i.e. when any version may be changed.
+     */
+    public static Set<Long> parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return Collections.emptySet();
+        }
+        Set<Long> versions = new LinkedHashSet<>();
+        for (String entityTag : ifMatch.split(",")) {
+            String version = versionOf(entityTag);
+            try {
+                versions.add(Long.parseLong(version == null ? "" : version));
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Malformed If-Match header: " + ifMatch);
+            }
+        }
+        return versions;
+    }
+
+    public static <T> ResponseEntity<T> ok(T body, Long version) {
+        return versioned(version).body(body);
+    }
+
+    public static ResponseEntity.BodyBuilder versioned(Long version) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (version != null) {
+            response.eTag("\"" + version + "\"");
+        }
+        return response;
+    }
+
+    /**
+     * The version part of an entity tag: "3" for "3", W/"3" and "3-hash"; null for an absent or blank tag.
+     */
+    static String versionOf(String entityTag) {
+        if (entityTag == null || entityTag.isBlank()) {
+            return null;
+        }
+        String tag = entityTag.trim();
+        if (tag.startsWith(WEAK_PREFIX)) {
+            tag = tag.substring(WEAK_PREFIX.length());
+        }
+        tag = tag.replace("\"", "");
+        int separator = tag.indexOf(CONTENT_SEPARATOR);
+        return separator < 0 ? tag : tag.substring(0, separator);
+    }
+}
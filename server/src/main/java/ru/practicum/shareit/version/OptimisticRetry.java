@@ -0,0 +1,57 @@
+package ru.practicum.shareit.version;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write in its own transaction and repeats it when the commit loses
+ * an optimistic version check to a concurrent writer.
+ */
+@Slf4j
+@Component
+public class OptimisticRetry {
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager,
+                           @Value("${shareit.optimistic-retry.max-attempts:3}") int maxAttempts) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new ConflictException(
+                            String.format("%s failed after %s attempts because of concurrent changes",
+                                    operation, attempt));
+                }
+                log.info("{} lost to a concurrent change, retrying (attempt {})", operation, attempt + 1);
+            }
+        }
+    }
+
+    /**
+     * Fails with 412 when the client sent the versions it expects to change and the stored one is none of them.
+     */
+    public static void checkVersion(Set<Long> expectedVersions, Long actualVersion, String resource) {
+        if (!expectedVersions.isEmpty() && !expectedVersions.contains(actualVersion)) {
+            throw new PreconditionFailedException(
+                    String.format("%s has version %s, expected one of %s", resource, actualVersion, expectedVersions));
+        }
+    }
+}
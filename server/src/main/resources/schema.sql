@@ -1,5 +1,7 @@
 --DROP ALL OBJECTS;
 
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
 
 CREATE TABLE IF NOT EXISTS users
 (
@@ -7,10 +9,13 @@ CREATE TABLE IF NOT EXISTS users
     name              VARCHAR(255)                            NOT NULL,
     email             VARCHAR(512)                            NOT NULL,
     registration_date TIMESTAMP                               NOT NULL,
+    version           BIGINT                                  NOT NULL DEFAULT 0,
     CONSTRAINT pk_user PRIMARY KEY (id),
     CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
 );
 
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 
 CREATE TABLE IF NOT EXISTS requests
 (
@@ -21,6 +26,10 @@ CREATE TABLE IF NOT EXISTS requests
     CONSTRAINT fk_requests_to_users FOREIGN KEY (author_id) REFERENCES users (id)
 );
 
+CREATE INDEX IF NOT EXISTS ix_requests_author_created ON requests (author_id, created DESC);
+
+CREATE INDEX IF NOT EXISTS ix_requests_created ON requests (created DESC);
+
 
 CREATE TABLE IF NOT EXISTS items
 (
@@ -31,22 +40,199 @@ CREATE TABLE IF NOT EXISTS items
     available   BOOLEAN      NOT NULL,
     created     TIMESTAMP    NOT NULL,
     request_id  BIGINT,
+    version     BIGINT       NOT NULL DEFAULT 0,
+    search_text TEXT GENERATED ALWAYS AS (lower(name || ' ' || coalesce(description, ''))) STORED,
+    search_vector TSVECTOR GENERATED ALWAYS AS
+        (to_tsvector('simple', name || ' ' || coalesce(description, ''))) STORED,
     CONSTRAINT fk_items_to_users FOREIGN KEY (owner_id) REFERENCES users (id),
     CONSTRAINT fk_items_to_requests FOREIGN KEY (request_id) REFERENCES requests (id)
 );
 
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_text TEXT
+    GENERATED ALWAYS AS (lower(name || ' ' || coalesce(description, ''))) STORED;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_vector TSVECTOR
+    GENERATED ALWAYS AS (to_tsvector('simple', name || ' ' || coalesce(description, ''))) STORED;
+
+CREATE INDEX IF NOT EXISTS ix_items_search_vector ON items USING gin (search_vector) WHERE available;
+
+CREATE INDEX IF NOT EXISTS ix_items_search_text ON items USING gin (search_text gin_trgm_ops) WHERE available;
+
+CREATE INDEX IF NOT EXISTS ix_items_owner_created ON items (owner_id, created DESC);
+
+CREATE INDEX IF NOT EXISTS ix_items_request ON items (request_id) WHERE request_id IS NOT NULL;
+
+
+-- databases created before bookings were partitioned keep them in a plain table: it is set aside here
+-- and its rows are moved into the partitioned table once that table and its monthly partitions exist
+DO
+'
+DECLARE
+    legacy_index TEXT;
+BEGIN
+    IF EXISTS(SELECT 1 FROM pg_class WHERE oid = to_regclass(''bookings'') AND relkind = ''r'') THEN
+        ALTER TABLE bookings RENAME TO bookings_unpartitioned;
+        ALTER TABLE bookings_unpartitioned ALTER COLUMN id DROP IDENTITY IF EXISTS;
+        ALTER TABLE bookings_unpartitioned ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+        ALTER TABLE bookings_unpartitioned DROP CONSTRAINT IF EXISTS ex_bookings_approved_overlap;
+        FOR legacy_index IN SELECT indexname
+                            FROM pg_indexes
+                            WHERE tablename = ''bookings_unpartitioned''
+                              AND indexname LIKE ''ix_bookings%''
+            LOOP
+                EXECUTE format(''DROP INDEX %I'', legacy_index);
+            END LOOP;
+    END IF;
+END;
+';
 
 CREATE TABLE IF NOT EXISTS bookings
 (
-    id         BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    id         BIGSERIAL   NOT NULL,
     item_id    BIGINT      NOT NULL,
     start_date TIMESTAMP   NOT NULL,
     end_date   TIMESTAMP   NOT NULL,
     booker_id  BIGINT      NOT NULL,
     status     VARCHAR(50) NOT NULL,
+    version    BIGINT      NOT NULL DEFAULT 0,
+    during     TSRANGE GENERATED ALWAYS AS (tsrange(start_date, end_date, '[)')) STORED,
+    CONSTRAINT pk_bookings PRIMARY KEY (id, start_date),
     CONSTRAINT items FOREIGN KEY (item_id) REFERENCES items (id),
     CONSTRAINT users FOREIGN KEY (booker_id) REFERENCES users (id)
-);
+) PARTITION BY RANGE (start_date);
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS during TSRANGE
+    GENERATED ALWAYS AS (tsrange(start_date, end_date, '[)')) STORED;
+
+-- ids are handed out by Hibernate's pooled optimizer in blocks of 50, so inserts can be batched
+ALTER SEQUENCE bookings_id_seq INCREMENT BY 50;
+
+-- monthly partitions are created ahead of time, so rows only land here if that ever falls behind
+CREATE TABLE IF NOT EXISTS bookings_default PARTITION OF bookings DEFAULT;
+
+-- creates the partition of the month starting at month_start unless it exists; every instance and the
+-- maintenance job take the same cluster-wide lock first, so they never race on CREATE
+CREATE OR REPLACE FUNCTION create_bookings_partition(month_start DATE) RETURNS BOOLEAN
+    LANGUAGE plpgsql AS
+'
+DECLARE
+    partition_name TEXT := ''bookings_'' || to_char(month_start, ''YYYY_MM'');
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext(''bookings_partitions''), 0);
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format(''CREATE TABLE %I PARTITION OF bookings FOR VALUES FROM (%L) TO (%L)'',
+                   partition_name, month_start, CAST(month_start + INTERVAL ''1 month'' AS DATE));
+    RETURN TRUE;
+END;
+';
+
+-- one-off move of the bookings set aside above: a partition is created for every month they cover,
+-- so none of them goes to the default partition, then the old table is dropped
+DO
+'
+DECLARE
+    partition_month DATE;
+BEGIN
+    IF to_regclass(''bookings_unpartitioned'') IS NOT NULL THEN
+        FOR partition_month IN SELECT DISTINCT CAST(date_trunc(''month'', start_date) AS DATE)
+                               FROM bookings_unpartitioned
+            LOOP
+                PERFORM create_bookings_partition(partition_month);
+            END LOOP;
+        INSERT INTO bookings (id, item_id, start_date, end_date, booker_id, status, version)
+        SELECT id, item_id, start_date, end_date, booker_id, status, version
+        FROM bookings_unpartitioned;
+        PERFORM setval(''bookings_id_seq'', (SELECT COALESCE(MAX(id), 0) + 50 FROM bookings), FALSE);
+        DROP TABLE bookings_unpartitioned CASCADE;
+    END IF;
+END;
+';
+
+-- one-off split of rows that reached the default partition before partitions were created ahead
+DO
+'
+DECLARE
+    partition_month DATE;
+BEGIN
+    IF EXISTS(SELECT 1 FROM bookings_default) THEN
+        PERFORM pg_advisory_xact_lock(hashtext(''bookings_partitions''), 0);
+        CREATE TEMPORARY TABLE bookings_default_rows ON COMMIT DROP AS
+        SELECT id, item_id, start_date, end_date, booker_id, status, version
+        FROM bookings_default;
+        ALTER TABLE bookings DETACH PARTITION bookings_default;
+        DELETE FROM bookings_default;
+        FOR partition_month IN SELECT DISTINCT CAST(date_trunc(''month'', start_date) AS DATE)
+                               FROM bookings_default_rows
+            LOOP
+                PERFORM create_bookings_partition(partition_month);
+            END LOOP;
+        ALTER TABLE bookings ATTACH PARTITION bookings_default DEFAULT;
+        INSERT INTO bookings (id, item_id, start_date, end_date, booker_id, status, version)
+        SELECT id, item_id, start_date, end_date, booker_id, status, version
+        FROM bookings_default_rows;
+    END IF;
+END;
+';
+
+-- partitioned tables cannot carry the exclusion constraint, so approved overlaps are rejected by a trigger
+-- serialized per item, raising the same exclusion_violation state as the constraint did
+CREATE OR REPLACE FUNCTION check_approved_booking_overlap() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+'
+BEGIN
+    IF NEW.status = ''APPROVED'' THEN
+        PERFORM pg_advisory_xact_lock(NEW.item_id);
+        IF EXISTS(SELECT 1
+                  FROM bookings b
+                  WHERE b.item_id = NEW.item_id
+                    AND b.status = ''APPROVED''
+                    AND b.id <> NEW.id
+                    AND b.during && tsrange(NEW.start_date, NEW.end_date, ''[)'')) THEN
+            RAISE EXCEPTION ''Item % is already booked for period from % to %'',
+                NEW.item_id, NEW.start_date, NEW.end_date
+                USING ERRCODE = ''exclusion_violation'';
+        END IF;
+    END IF;
+    RETURN NEW;
+END;
+';
+
+DROP TRIGGER IF EXISTS tr_bookings_approved_overlap ON bookings;
+
+CREATE TRIGGER tr_bookings_approved_overlap
+    BEFORE INSERT OR UPDATE OF status, start_date, end_date
+    ON bookings
+    FOR EACH ROW
+EXECUTE FUNCTION check_approved_booking_overlap();
+
+CREATE INDEX IF NOT EXISTS ix_bookings_item_during ON bookings USING gist (item_id, during);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_item_start ON bookings (item_id, start_date DESC)
+    INCLUDE (status, booker_id, end_date);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_start ON bookings (booker_id, start_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_waiting ON bookings (booker_id, start_date DESC)
+    WHERE status = 'WAITING';
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_rejected ON bookings (booker_id, start_date DESC)
+    WHERE status = 'REJECTED';
+
+CREATE INDEX IF NOT EXISTS ix_bookings_item_waiting ON bookings (item_id, start_date DESC)
+    WHERE status = 'WAITING';
+
+CREATE INDEX IF NOT EXISTS ix_bookings_item_rejected ON bookings (item_id, start_date DESC)
+    WHERE status = 'REJECTED';
+
+DROP INDEX IF EXISTS ix_bookings_end_start;
+
+DROP INDEX IF EXISTS ix_bookings_waiting_start;
 
 
 CREATE TABLE IF NOT EXISTS comments
@@ -58,4 +244,68 @@ CREATE TABLE IF NOT EXISTS comments
     created   TIMESTAMP     NOT NULL,
     CONSTRAINT fk_comments_to_items FOREIGN KEY (item_id) REFERENCES items (id),
     CONSTRAINT fk_comments_to_users FOREIGN KEY (author_id) REFERENCES users (id)
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS ix_comments_item ON comments (item_id);
+
+
+-- approved rentals of bookings partitions detached to the archive, per item and booker,
+-- so comment eligibility and rent counters still account for them
+CREATE TABLE IF NOT EXISTS booking_rentals
+(
+    item_id   BIGINT    NOT NULL,
+    booker_id BIGINT    NOT NULL,
+    rentals   BIGINT    NOT NULL,
+    last_end  TIMESTAMP NOT NULL,
+    CONSTRAINT pk_booking_rentals PRIMARY KEY (item_id, booker_id),
+    CONSTRAINT fk_booking_rentals_to_items FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+);
+
+
+-- the last booking is copied into the summary, so it is still shown after its partition is archived
+CREATE TABLE IF NOT EXISTS item_booking_summary
+(
+    item_id         BIGINT PRIMARY KEY,
+    last_booking_id BIGINT,
+    last_start      TIMESTAMP,
+    last_end        TIMESTAMP,
+    last_booker_id  BIGINT,
+    next_booking_id BIGINT,
+    next_start      TIMESTAMP,
+    rent_counter    BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT fk_summary_to_items FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+);
+
+ALTER TABLE item_booking_summary ADD COLUMN IF NOT EXISTS last_start TIMESTAMP;
+ALTER TABLE item_booking_summary ADD COLUMN IF NOT EXISTS last_end TIMESTAMP;
+ALTER TABLE item_booking_summary ADD COLUMN IF NOT EXISTS last_booker_id BIGINT;
+
+UPDATE item_booking_summary s
+SET last_start     = b.start_date,
+    last_end       = b.end_date,
+    last_booker_id = b.booker_id
+FROM bookings b
+WHERE b.id = s.last_booking_id
+  AND s.last_start IS NULL;
+
+CREATE INDEX IF NOT EXISTS ix_item_booking_summary_next_start ON item_booking_summary (next_start);
+
+INSERT INTO item_booking_summary
+    (item_id, last_booking_id, last_start, last_end, last_booker_id, next_booking_id, next_start, rent_counter)
+SELECT i.id, l.id, l.start_date, l.end_date, l.booker_id, n.id, n.start_date,
+       (SELECT COUNT(*) FROM bookings c WHERE c.item_id = i.id AND c.status = 'APPROVED')
+           + COALESCE((SELECT SUM(r.rentals) FROM booking_rentals r WHERE r.item_id = i.id), 0)
+FROM items i
+LEFT JOIN LATERAL (SELECT b.id, b.start_date, b.end_date, b.booker_id
+                   FROM bookings b
+                   WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date <= LOCALTIMESTAMP
+                   ORDER BY b.start_date DESC
+                   LIMIT 1) l ON TRUE
+LEFT JOIN LATERAL (SELECT b.id, b.start_date
+                   FROM bookings b
+                   WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date > LOCALTIMESTAMP
+                   ORDER BY b.start_date
+                   LIMIT 1) n ON TRUE
+WHERE NOT EXISTS (SELECT 1 FROM item_booking_summary s WHERE s.item_id = i.id)
+  AND EXISTS (SELECT 1 FROM bookings b WHERE b.item_id = i.id AND b.status = 'APPROVED')
+ON CONFLICT (item_id) DO NOTHING;
@@ -0,0 +1,61 @@
+package ru.practicum.shareit;
+
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Wraps the data source and records every statement sent through it with its parameters, so a test can
+ * explain exactly the SQL that Hibernate and QueryDSL generated for a repository call.
+ */
+public class CapturedQueries implements BeanPostProcessor {
+    private final List<QueryInfo> queries = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create((DataSource) bean)
+                .afterQuery((execution, queryInfos) -> queries.addAll(queryInfos))
+                .build();
+    }
+
+    public void clear() {
+        queries.clear();
+    }
+
+    /**
+     * Plans of the statements sent since the last {@link #clear()}, one line per plan node, each statement
+     * explained with the parameters it was sent with.
+     */
+    public List<String> explain(JdbcTemplate jdbcTemplate) {
+        List<QueryInfo> sent = new ArrayList<>(queries);
+        List<String> plan = new ArrayList<>();
+        for (QueryInfo query : sent) {
+            List<ParameterSetOperation> parameters = query.getParametersList().isEmpty()
+                    ? List.of()
+                    : query.getParametersList().get(0);
+            plan.addAll(jdbcTemplate.query("EXPLAIN " + query.getQuery(),
+                    statement -> {
+                        for (ParameterSetOperation parameter : parameters) {
+                            try {
+                                parameter.getMethod().invoke(statement, parameter.getArgs());
+                            } catch (ReflectiveOperationException e) {
+                                throw new IllegalStateException("Cannot replay parameter of " + query.getQuery(), e);
+                            }
+                        }
+                    },
+                    (resultSet, rowNum) -> resultSet.getString(1)));
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,235 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.request.ItemRequestRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+import static ru.practicum.shareit.booking.QBooking.booking;
+import static ru.practicum.shareit.booking.status.Status.WAITING;
+
+/**
+ * Guards the indexes of schema.sql against being dropped or made unusable by a change of the queries they back.
+ * Every test explains the statements a repository call actually sent, with their parameters.
+ * The test tables are almost empty, so sequential scans are disabled and the plan shows which index
+ * the planner can use for each query.
+ */
+@Import(CapturedQueries.class)
+class QueryIndexesTest extends PostgresRepositoryTest {
+    private static final Pattern INDEX_SCAN =
+            Pattern.compile("Index (?:Only )?Scan(?: Backward)? using (\\S+)|Bitmap Index Scan on (\\S+)");
+    private static final long USER_ID = 1L;
+    private static final Pageable BOOKINGS_PAGE = PageRequest.of(0, 10, Sort.by(DESC, "start"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CapturedQueries capturedQueries;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemRequestRepository requestRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @BeforeEach
+    void disableSequentialScans() {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void ownerItemsUseOwnerCreatedIndex() {
+        List<String> plan = planOf(() ->
+                itemRepository.findAllByOwnerId(USER_ID, PageRequest.of(0, 10, Sort.by(DESC, "created"))));
+
+        assertThat(indexesUsed(plan)).contains("ix_items_owner_created");
+    }
+
+    @Test
+    void requestAnswersUseRequestIndex() {
+        List<String> plan = planOf(() -> itemRepository.findAllByRequestIdIn(Set.of(1L, 2L)));
+
+        assertThat(indexesUsed(plan)).contains("ix_items_request");
+    }
+
+    @Test
+    void authorRequestsUseAuthorCreatedIndex() {
+        List<String> plan = planOf(() -> requestRepository.findAllByAuthorIdOrderByCreatedDesc(USER_ID));
+
+        assertThat(indexesUsed(plan)).contains("ix_requests_author_created");
+    }
+
+    @Test
+    void othersRequestsUseCreatedIndex() {
+        List<String> plan = planOf(() ->
+                requestRepository.findAllByAuthorIdNot(USER_ID, PageRequest.of(0, 10, Sort.by(DESC, "created"))));
+
+        assertThat(indexesUsed(plan)).contains("ix_requests_created");
+    }
+
+    @Test
+    void itemCommentsUseItemIndex() {
+        List<String> plan = planOf(() -> commentRepository.findAllByItemIdIn(List.of(1L, 2L)));
+
+        assertThat(indexesUsed(plan)).contains("ix_comments_item");
+    }
+
+    @Test
+    void bookerBookingsUseBookerStartIndex() {
+        List<String> plan = planOf(() -> bookingRepository.findAll(booking.booker.id.eq(USER_ID), BOOKINGS_PAGE));
+
+        assertThat(indexesUsed(plan)).contains("ix_bookings_booker_start");
+        assertNoSequentialScans(plan);
+    }
+
+    @Test
+    void bookerBookingsAfterCursorUseBookerStartIndex() {
+        LocalDateTime cursorStart = LocalDateTime.now();
+        List<String> plan = planOf(() -> bookingRepository.findAllOrderedByStartDesc(
+                booking.booker.id.eq(USER_ID)
+                        .and(booking.start.lt(cursorStart)
+                                .or(booking.start.eq(cursorStart).and(booking.id.lt(100L)))),
+                10));
+
+        assertThat(indexesUsed(plan)).contains("ix_bookings_booker_start");
+        assertNoSequentialScans(plan);
+    }
+
+    @Test
+    void waitingBookerBookingsUsePartialIndex() {
+        List<String> plan = planOf(() -> bookingRepository.findAll(
+                booking.booker.id.eq(USER_ID).and(booking.status.eq(WAITING)), BOOKINGS_PAGE));
+
+        assertThat(indexesUsed(plan)).contains("ix_bookings_booker_waiting");
+        assertNoSequentialScans(plan);
+    }
+
+    @Test
+    void ownerBookingsUseOwnerIndexAndItemIndexes() {
+        List<String> plan = planOf(() -> bookingRepository.findAll(booking.item.owner.id.eq(USER_ID), BOOKINGS_PAGE));
+
+        assertThat(indexesUsed(plan)).contains("ix_items_owner_created");
+        assertNoSequentialScans(plan);
+    }
+
+    @Test
+    void ownerBookingsAfterCursorUseOwnerIndexAndItemIndexes() {
+        List<String> plan = planOf(() -> bookingRepository.findAllOrderedByStartDesc(
+                booking.item.owner.id.eq(USER_ID).and(booking.status.eq(WAITING)), 10));
+
+        assertThat(indexesUsed(plan)).contains("ix_items_owner_created");
+        assertNoSequentialScans(plan);
+    }
+
+    @Test
+    void bookerCountsUseBookerStartIndex() {
+        List<String> plan = planOf(() -> bookingRepository.countByStateForBooker(USER_ID, LocalDateTime.now()));
+
+        assertThat(indexesUsed(plan)).contains("ix_bookings_booker_start");
+        assertNoSequentialScans(plan);
+    }
+
+    @Test
+    void ownerCountsUseOwnerIndexAndItemIndexes() {
+        List<String> plan = planOf(() -> bookingRepository.countByStateForOwner(USER_ID, LocalDateTime.now()));
+
+        assertThat(indexesUsed(plan)).contains("ix_items_owner_created");
+        assertNoSequentialScans(plan);
+    }
+
+    @Test
+    void storedSummariesUsePrimaryKeys() {
+        List<String> plan = planOf(() -> bookingRepository.findSummariesByItems(List.of(1L, 2L)));
+
+        assertNoSequentialScans(plan);
+    }
+
+    @Test
+    void computedSummariesUseItemStartIndex() {
+        List<String> plan = planOf(() ->
+                bookingRepository.computeSummariesByItems(List.of(1L, 2L), LocalDateTime.now()));
+
+        assertThat(indexesUsed(plan)).contains("ix_bookings_item_start");
+        assertNoSequentialScans(plan);
+    }
+
+    @Test
+    void refreshedSummariesUseItemStartIndex() {
+        List<String> plan = planOf(() -> bookingRepository.refreshSummaries(List.of(1L, 2L), LocalDateTime.now()));
+
+        assertThat(indexesUsed(plan)).contains("ix_bookings_item_start");
+        assertNoSequentialScans(plan);
+    }
+
+    @Test
+    void dueSummariesUseNextStartIndex() {
+        List<String> plan = planOf(() -> bookingRepository.findItemIdsWithSummaryDue(LocalDateTime.now()));
+
+        assertThat(indexesUsed(plan)).contains("ix_item_booking_summary_next_start");
+    }
+
+    /**
+     * Plan lines of every statement the repository call sent.
+     */
+    private List<String> planOf(Runnable repositoryCall) {
+        capturedQueries.clear();
+        repositoryCall.run();
+        List<String> plan = capturedQueries.explain(jdbcTemplate);
+        assertThat(plan).isNotEmpty();
+        return plan;
+    }
+
+    private void assertNoSequentialScans(List<String> plan) {
+        assertThat(plan).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    /**
+     * Names of the indexes scanned by the plan. Scans of a bookings partition report the index
+     * of the partition, so the partitioned index it is attached to is added as well.
+     */
+    private Set<String> indexesUsed(List<String> plan) {
+        Set<String> indexes = new HashSet<>();
+        for (String line : plan) {
+            Matcher matcher = INDEX_SCAN.matcher(line);
+            while (matcher.find()) {
+                indexes.add(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+            }
+        }
+        Set<String> parents = new HashSet<>();
+        for (String index : indexes) {
+            List<String> parent = jdbcTemplate.queryForList(
+                    "SELECT p.relname " +
+                            "FROM pg_inherits i " +
+                            "JOIN pg_class c ON c.oid = i.inhrelid " +
+                            "JOIN pg_class p ON p.oid = i.inhparent " +
+                            "WHERE c.relname = ?", String.class, index);
+            parents.addAll(parent);
+        }
+        indexes.addAll(parents);
+        return indexes;
+    }
+}
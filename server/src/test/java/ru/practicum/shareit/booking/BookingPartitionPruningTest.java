@@ -0,0 +1,84 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.shareit.CapturedQueries;
+import ru.practicum.shareit.TestPostgres;
+import ru.practicum.shareit.booking.state.State;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+
+@SpringBootTest
+@Import(CapturedQueries.class)
+class BookingPartitionPruningTest {
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingPartitionMaintenance partitionMaintenance;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CapturedQueries capturedQueries;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        TestPostgres.register(registry);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"CURRENT, true", "CURRENT, false", "WAITING, true", "WAITING, false"})
+    void listsOfNewUserSkipPartitionsStartedBeforeRegistration(State state, boolean isBooker) {
+        long userId = userRepository.save(new User(null, "user", UUID.randomUUID() + "@example.com", null)).getId();
+
+        assertListsSkipPartitionOf(YearMonth.now().minusYears(2), userId, state, isBooker);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void currentListsOfLongRegisteredUserSkipPartitionsOlderThanLongestBooking(boolean isBooker) {
+        long userId = userRepository.save(new User(null, "user", UUID.randomUUID() + "@example.com", null)).getId();
+        jdbcTemplate.update("UPDATE users SET registration_date = ? WHERE id = ?",
+                LocalDateTime.now().minusYears(5), userId);
+
+        assertListsSkipPartitionOf(YearMonth.now().minusYears(2), userId, State.CURRENT, isBooker);
+    }
+
+    private void assertListsSkipPartitionOf(YearMonth old, long userId, State state, boolean isBooker) {
+        partitionMaintenance.ensurePartitionFor(old.atDay(1).atStartOfDay());
+
+        capturedQueries.clear();
+        bookingService.getAllForUserByState(userId, state, isBooker, PageRequest.of(0, 10, Sort.by(DESC, "start")));
+        bookingService.getAllForUserByState(userId, state, isBooker, null, 10);
+        List<String> plan = capturedQueries.explain(jdbcTemplate);
+
+        assertThat(plan).anyMatch(line -> line.contains(partitionOf(YearMonth.now())));
+        assertThat(plan).noneMatch(line -> line.contains(partitionOf(old)));
+    }
+
+    private static String partitionOf(YearMonth month) {
+        return String.format("bookings_%d_%02d", month.getYear(), month.getMonthValue());
+    }
+}
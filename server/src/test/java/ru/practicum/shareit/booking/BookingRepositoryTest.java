@@ -0,0 +1,124 @@
+package ru.practicum.shareit.booking;
+
+import com.querydsl.core.types.Predicate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.PostgresRepositoryTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+import static ru.practicum.shareit.booking.BookingMapper.convertToDtoList;
+import static ru.practicum.shareit.booking.QBooking.booking;
+
+class BookingRepositoryTest extends PostgresRepositoryTest {
+    private static final int ITEM_COUNT = 3;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private User booker;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10})
+    void bookerPageWithItemsAndBookersIsLoadedInOneStatement(int bookingsPerItem) {
+        createBookings(bookingsPerItem);
+
+        assertMappedInOneStatement(bookingsPerItem,
+                () -> convertToDtoList(bookingRepository.findAll(booking.booker.id.eq(booker.getId()), page())));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10})
+    void ownerPageWithItemsAndBookersIsLoadedInOneStatement(int bookingsPerItem) {
+        createBookings(bookingsPerItem);
+
+        assertMappedInOneStatement(bookingsPerItem,
+                () -> convertToDtoList(bookingRepository.findAll(booking.item.owner.id.eq(owner.getId()), page())));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10})
+    void bookerSliceWithItemsAndBookersIsLoadedInOneStatement(int bookingsPerItem) {
+        createBookings(bookingsPerItem);
+
+        assertMappedInOneStatement(bookingsPerItem,
+                () -> convertToDtoList(findOrderedByStartDesc(booking.booker.id.eq(booker.getId()))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10})
+    void ownerSliceWithItemsAndBookersIsLoadedInOneStatement(int bookingsPerItem) {
+        createBookings(bookingsPerItem);
+
+        assertMappedInOneStatement(bookingsPerItem,
+                () -> convertToDtoList(findOrderedByStartDesc(booking.item.owner.id.eq(owner.getId()))));
+    }
+
+    private List<Booking> findOrderedByStartDesc(Predicate predicate) {
+        return bookingRepository.findAllOrderedByStartDesc(predicate, ITEM_COUNT * 20);
+    }
+
+    /**
+     * Runs the list query and maps its bookings to DTOs, touching the item and booker of every booking.
+     */
+    private void assertMappedInOneStatement(int bookingsPerItem, Supplier<List<BookingDto>> listing) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BookingDto> bookings = listing.get();
+        Set<String> itemNames = bookings.stream()
+                .map(dto -> dto.getItem().getName())
+                .collect(Collectors.toSet());
+
+        assertThat(bookings).hasSize(ITEM_COUNT * bookingsPerItem)
+                .allMatch(dto -> dto.getBooker().getId() == booker.getId());
+        assertThat(itemNames).hasSize(ITEM_COUNT);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private void createBookings(int bookingsPerItem) {
+        owner = entityManager.persist(new User(null, "owner", "owner@example.com", null));
+        booker = entityManager.persist(new User(null, "booker", "booker@example.com", null));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            Item item = entityManager.persist(new Item(null, "Drill " + i, "Cordless drill", true, owner, null, null));
+            for (int j = 0; j < bookingsPerItem; j++) {
+                Booking itemBooking = new Booking();
+                itemBooking.setStart(start.plusDays(j));
+                itemBooking.setEnd(start.plusDays(j).plusHours(1));
+                itemBooking.setItem(item);
+                itemBooking.setBooker(booker);
+                entityManager.persist(itemBooking);
+            }
+        }
+    }
+
+    private static PageRequest page() {
+        return PageRequest.of(0, ITEM_COUNT * 20, Sort.by(DESC, "start"));
+    }
+}
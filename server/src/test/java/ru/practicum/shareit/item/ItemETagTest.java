@@ -0,0 +1,85 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.TestPostgres;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemETagTest {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        TestPostgres.register(registry);
+    }
+
+    @Test
+    void etagOfItemViewIsAcceptedAsIfMatchOfItemUpdate() throws Exception {
+        String email = UUID.randomUUID() + "@example.com";
+        long ownerId = create("/users", 0, "{\"name\": \"owner\", \"email\": \"" + email + "\"}");
+        long itemId = create("/items", ownerId,
+                "{\"name\": \"Drill\", \"description\": \"Cordless drill\", \"available\": true}");
+
+        String viewTag = mockMvc.perform(get("/items/{itemId}", itemId).header(USER_HEADER, ownerId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(viewTag).matches("\"\\d+-[0-9a-f]{32}\"");
+
+        mockMvc.perform(get("/items/{itemId}", itemId).header(USER_HEADER, ownerId)
+                        .header(HttpHeaders.IF_NONE_MATCH, viewTag))
+                .andExpect(status().isNotModified());
+
+        String updatedTag = mockMvc.perform(patch("/items/{itemId}", itemId).header(USER_HEADER, ownerId)
+                        .header(HttpHeaders.IF_MATCH, viewTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Hammer drill\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(updatedTag).matches("\"\\d+-[0-9a-f]{32}\"").isNotEqualTo(viewTag);
+
+        mockMvc.perform(patch("/items/{itemId}", itemId).header(USER_HEADER, ownerId)
+                        .header(HttpHeaders.IF_MATCH, viewTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Drill\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(patch("/items/{itemId}", itemId).header(USER_HEADER, ownerId)
+                        .header(HttpHeaders.IF_MATCH, viewTag + ", " + updatedTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Drill\"}"))
+                .andExpect(status().isOk());
+    }
+
+    private long create(String path, long userId, String json) throws Exception {
+        MvcResult result = mockMvc.perform(post(path).header(USER_HEADER, userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+}
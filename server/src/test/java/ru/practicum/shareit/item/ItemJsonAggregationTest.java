@@ -0,0 +1,80 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.shareit.TestPostgres;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.ItemRequestService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ItemJsonAggregationTest {
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemRequestService requestService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        TestPostgres.register(registry);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void aggregatedItemHasShapeOfSerializedDto(boolean answersRequest) throws Exception {
+        long ownerId = createUser("owner");
+        long viewerId = createUser("viewer");
+        Long requestId = answersRequest
+                ? requestService.create(viewerId, ItemRequestDto.builder().description("Need a drill").build()).getId()
+                : null;
+        long itemId = itemService.create(ItemDto.builder()
+                .name("Drill")
+                .available(true)
+                .requestId(requestId)
+                .build(), ownerId).getId();
+
+        for (long userId : List.of(ownerId, viewerId)) {
+            JsonNode expected = objectMapper.readTree(
+                    objectMapper.writeValueAsString(itemService.getById(itemId, userId)));
+            JsonNode aggregated = objectMapper.readTree(itemService.getJsonById(itemId, userId).getItem());
+
+            assertThat(aggregated).isEqualTo(expected);
+            assertThat(fieldNames(aggregated)).containsExactlyElementsOf(fieldNames(expected));
+        }
+    }
+
+    private long createUser(String name) {
+        return userService.create(UserDto.builder()
+                .name(name)
+                .email(UUID.randomUUID() + "@example.com")
+                .build()).getId();
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.item.storage;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.PostgresRepositoryTest;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommentRepositoryTest extends PostgresRepositoryTest {
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20})
+    void commentsOfManyItemsWithAuthorsAreLoadedInOneStatement(int itemCount) {
+        User owner = entityManager.persist(new User(null, "owner", "owner@example.com", null));
+        User author = entityManager.persist(new User(null, "author", "author@example.com", null));
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            Item item = entityManager.persist(new Item(null, "Drill " + i, "Cordless drill", true, owner, null, null));
+            entityManager.persist(new Comment(null, "Works fine", item, author));
+            entityManager.persist(new Comment(null, "Battery lasts long", item, author));
+            itemIds.add(item.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Comment> comments = commentRepository.findAllByItemIdIn(itemIds);
+        Set<String> authorNames = comments.stream()
+                .map(comment -> comment.getAuthor().getName())
+                .collect(Collectors.toSet());
+
+        assertThat(comments).hasSize(2 * itemCount);
+        assertThat(authorNames).containsExactly("author");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}